@@ -0,0 +1,27 @@
+#!/usr/bin/env sh
+# Runs LoginLoadTest against each server in TARGETS, one after the other.
+#
+#   ./load.sh [concurrency] [seconds] [users] [login|register|storm]
+#   TARGETS="http://host:8080 http://host:8081" ./load.sh 2000 60
+#
+# Default targets: the blocking service (8080), the reactive variant (8081) and, if started, the blocking service
+# with login.execution-mode=virtual (8082).
+set -e
+cd "$(dirname "$0")"
+
+TARGETS=${TARGETS:-"http://localhost:8080 http://localhost:8081 http://localhost:8082"}
+CONCURRENCY=${1:-1000}
+SECONDS_PER_RUN=${2:-30}
+USERS=${3:-100}
+SCENARIO=${4:-login}
+
+[ -f target/benchmarks.jar ] || mvn -q package
+
+for url in $TARGETS; do
+    if curl -sf -o /dev/null "$url/q/metrics"; then
+        java -cp target/benchmarks.jar at.htlleonding.load.LoginLoadTest "$url" "$CONCURRENCY" "$SECONDS_PER_RUN" "$USERS" "$SCENARIO"
+        echo
+    else
+        echo "Skipping $url: not reachable"
+    fi
+done
@@ -0,0 +1,21 @@
+#!/usr/bin/env sh
+# Runs the JMH suites with the GC profiler, writes machine-readable results to target/jmh-results.json and,
+# if a baseline exists, compares against it. Extra arguments are passed to JMH (e.g. a benchmark regex).
+#
+#   ./run.sh                         # all suites
+#   ./run.sh JWT                     # only the JWT suites
+#   BASELINE=baseline.json TOLERANCE=5 ./run.sh
+set -e
+cd "$(dirname "$0")"
+
+BASELINE=${BASELINE:-baseline.json}
+TOLERANCE=${TOLERANCE:-10}
+
+mvn -q package
+java -jar target/benchmarks.jar -prof gc -rf json -rff target/jmh-results.json "$@"
+
+if [ -f "$BASELINE" ]; then
+    java -cp target/benchmarks.jar at.htlleonding.report.BaselineComparator "$BASELINE" target/jmh-results.json "$TOLERANCE"
+else
+    echo "No baseline at $BASELINE; store target/jmh-results.json there to compare future runs against it."
+fi
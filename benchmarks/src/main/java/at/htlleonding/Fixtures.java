@@ -0,0 +1,67 @@
+package at.htlleonding;
+
+import at.htlleonding.hashing.Argon2Policy;
+import at.htlleonding.hashing.HashingExecutor;
+import at.htlleonding.keys.KeyRingFixtures;
+import at.htlleonding.metrics.LoginMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+
+/**
+ * Wires the CDI beans under test by hand, since the benchmarks run without a Quarkus container.
+ */
+public final class Fixtures {
+    public static final String PEPPER = "benchmark-pepper-0123456789abcdef";
+
+    private Fixtures() {
+    }
+
+    public static CredentialManager credentialManager() {
+        CredentialManager credentialManager = new CredentialManager();
+        credentialManager.pepper = PEPPER;
+        credentialManager.secret = "benchmark-secret-0123456789abcdef";
+        return credentialManager;
+    }
+
+    /**
+     * A LoginService whose repository only knows {@code storedUser}; the credential cache in front of it keeps
+     * the lookup in memory so the benchmarks measure the Argon2 work.
+     */
+    public static LoginService loginService(Argon2Policy policy, HashingExecutor hashingExecutor, User storedUser) {
+        LoginPanacheRepository repository = new LoginPanacheRepository() {
+            @Override
+            public User findByUsername(String username) {
+                return storedUser.getUsername().equals(username) ? storedUser : null;
+            }
+        };
+
+        LoginMetrics metrics = metrics();
+
+        UserCredentialCache credentialCache = new UserCredentialCache();
+        credentialCache.maxSize = 1000;
+        credentialCache.ttl = Duration.ofHours(1);
+        credentialCache.negativeTtl = Duration.ofHours(1);
+        credentialCache.negativeEnabled = true;
+        credentialCache.loginRepo = repository;
+        credentialCache.registry = new SimpleMeterRegistry();
+        credentialCache.metrics = metrics;
+        credentialCache.init();
+
+        LoginService loginService = new LoginService();
+        loginService.loginRepo = repository;
+        loginService.keyRing = KeyRingFixtures.keyRing("HS256");
+        loginService.hashingExecutor = hashingExecutor;
+        loginService.argon2Policy = policy;
+        loginService.credentialCache = credentialCache;
+        loginService.metrics = metrics;
+        return loginService;
+    }
+
+    /**
+     * Pipeline timers on a private registry, so the benchmarks include the cost of recording them.
+     */
+    public static LoginMetrics metrics() {
+        return new LoginMetrics(new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,64 @@
+package at.htlleonding;
+
+import at.htlleonding.hashing.Argon2Policy;
+import at.htlleonding.hashing.HashingExecutor;
+import at.htlleonding.hashing.HashingFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Argon2 cost of registration and login through LoginService, for several parameter sets
+ * ({@code iterations:memoryKb:parallelism}). The stored hash always matches the current policy, so
+ * checkPassword never triggers a rehash.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginServiceBenchmark {
+    @Param({"2:65536:1", "3:65536:1", "1:262144:4"})
+    String argon2;
+
+    private HashingExecutor hashingExecutor;
+    private LoginService loginService;
+
+    @Setup
+    public void setUp() {
+        String[] parameters = argon2.split(":");
+        Argon2Policy policy = HashingFixtures.argon2Policy(
+                Integer.parseInt(parameters[0]), Integer.parseInt(parameters[1]), Integer.parseInt(parameters[2]));
+        hashingExecutor = HashingFixtures.hashingExecutor(policy);
+        User user = new User("test@gmail.com", null, "+123456789");
+        loginService = Fixtures.loginService(policy, hashingExecutor, user);
+        user.setPassword(loginService.encryptPassword("password123"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        HashingFixtures.shutdown(hashingExecutor);
+    }
+
+    @Benchmark
+    public String encryptPassword() {
+        return loginService.encryptPassword("password123");
+    }
+
+    @Benchmark
+    public boolean checkPassword() {
+        return loginService.checkPassword("test@gmail.com", "password123");
+    }
+}
@@ -0,0 +1,38 @@
+package at.htlleonding.hashing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Optional;
+
+/**
+ * Builds the hashing beans without a CDI container.
+ */
+public final class HashingFixtures {
+
+    private HashingFixtures() {
+    }
+
+    public static Argon2Policy argon2Policy(int iterations, int memoryKb, int parallelism) {
+        Argon2Policy policy = new Argon2Policy();
+        policy.iterations = iterations;
+        policy.memoryKb = memoryKb;
+        policy.parallelism = parallelism;
+        return policy;
+    }
+
+    public static HashingExecutor hashingExecutor(Argon2Policy policy) {
+        HashingExecutor executor = new HashingExecutor();
+        executor.poolSize = Optional.empty();
+        executor.queueCapacity = 1024;
+        executor.memoryBudgetMb = 4096;
+        executor.retryAfterSeconds = 1;
+        executor.registry = new SimpleMeterRegistry();
+        executor.argon2Policy = policy;
+        executor.init();
+        return executor;
+    }
+
+    public static void shutdown(HashingExecutor executor) {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,49 @@
+package at.htlleonding.jwt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing and verifying one token per signing algorithm. HS256 is the baseline; ES256 and EdDSA buy offline
+ * verification by other services with a slower sign and, for ES256, a much slower verify.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTAlgorithmBenchmark {
+    @Param({HmacTokenSigner.ALGORITHM, AsymmetricTokenSigner.ES256, AsymmetricTokenSigner.EDDSA})
+    String algorithm;
+
+    private JWTService jwtService;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        jwtService = JwtFixtures.jwtService(algorithm);
+        authorizationHeader = "Bearer " + jwtService.generateToken("test@gmail.com", 30);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateToken("test@gmail.com", 30);
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtService.verify(authorizationHeader, 7);
+    }
+}
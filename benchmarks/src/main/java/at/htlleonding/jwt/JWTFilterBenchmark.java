@@ -0,0 +1,87 @@
+package at.htlleonding.jwt;
+
+import at.htlleonding.Fixtures;
+import at.htlleonding.token.RevocationFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of JWTFilter per {@code @JWTRequired} request, with a warm token cache (the common case of a client reusing
+ * its token) and with the cache effectively disabled (every request verifies the HMAC). Both include the revocation
+ * check against a filter holding 1000 revoked ids.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTFilterBenchmark {
+    @Param({"true", "false"})
+    boolean cached;
+
+    private JWTFilter filter;
+    private ContainerRequestContext request;
+
+    @Setup
+    public void setUp() {
+        JWTService jwtService = JwtFixtures.jwtService();
+
+        VerifiedTokenCache tokenCache = cached ? new VerifiedTokenCache() : new VerifiedTokenCache() {
+            @Override
+            public VerifiedToken get(String source, int offset, long keyGeneration) {
+                return null;
+            }
+
+            @Override
+            public void put(String source, int offset, VerifiedToken claims, long keyGeneration) {
+            }
+        };
+        tokenCache.size = 1024;
+        tokenCache.registry = new SimpleMeterRegistry();
+        tokenCache.init();
+
+        filter = new JWTFilter();
+        filter.jwtService = jwtService;
+        filter.tokenCache = tokenCache;
+        filter.metrics = Fixtures.metrics();
+        filter.revocations = RevocationFixtures.revocations(1000);
+
+        String authorization = "Bearer " + jwtService.generateToken("test@gmail.com", 30);
+        request = requestWithAuthorization(authorization);
+    }
+
+    @Benchmark
+    public ContainerRequestContext filter() {
+        filter.filter(request);
+        return request;
+    }
+
+    /**
+     * Minimal request context: answers the Authorization header, ignores properties and fails on an abort,
+     * since the benchmark token must always be accepted.
+     */
+    private static ContainerRequestContext requestWithAuthorization(String authorization) {
+        return (ContainerRequestContext) Proxy.newProxyInstance(JWTFilterBenchmark.class.getClassLoader(),
+                new Class<?>[]{ContainerRequestContext.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getHeaderString" -> authorization;
+                    case "setProperty" -> null;
+                    case "abortWith" -> throw new IllegalStateException("Token rejected");
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
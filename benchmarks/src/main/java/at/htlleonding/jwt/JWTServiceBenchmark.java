@@ -0,0 +1,85 @@
+package at.htlleonding.jwt;
+
+import at.htlleonding.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens per second for signing and verifying. {@link #perCallMac()} reproduces the former
+ * Mac.getInstance + init per call so the cached signer can be compared against it in the same run, and
+ * {@link #concatenatedToken()} the former String-based token assembly for comparison with the byte-level
+ * {@link #generateToken()}. Run with {@code -t 8} or more to see the effect under contention for the allocator.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTServiceBenchmark {
+    private static final byte[] SIGNED_PART = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.eyJ1c2VybmFtZSI6InRlc3RAZ21haWwuY29tIiwiZXhwIjoxNzAwMDAwMDAwfQ"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private JWTService jwtService;
+    private HmacSigner signer;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = JwtFixtures.jwtService();
+        signer = new HmacSigner(Fixtures.PEPPER.getBytes(StandardCharsets.UTF_8));
+        token = jwtService.generateToken("test@gmail.com", 30);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("test@gmail.com", 30);
+    }
+
+    @Benchmark
+    public String concatenatedToken() {
+        TokenSigner active = jwtService.keyRing.keys().activeSigner();
+        String header = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("{\"alg\":\"HS256\",\"typ\":\"JWT\",\"kid\":\"" + active.kid() + "\"}").getBytes());
+        long now = System.currentTimeMillis() / 1000;
+        String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("{\"username\":\"test@gmail.com\",\"exp\":" + (now + 1800) + ",\"iat\":" + now
+                        + ",\"jti\":\"" + UUID.randomUUID() + "\"}").getBytes());
+        byte[] data = (header + "." + payload).getBytes();
+        byte[] signature = new byte[active.signatureLength()];
+        active.sign(data, 0, data.length, signature);
+        return header + "." + payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    @Benchmark
+    public boolean verifyToken() {
+        return jwtService.verifyToken(token);
+    }
+
+    @Benchmark
+    public byte[] perCallMac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Fixtures.PEPPER.getBytes(), "HmacSHA256"));
+        return mac.doFinal(SIGNED_PART);
+    }
+
+    @Benchmark
+    public byte[] cachedMac() {
+        return signer.sign(SIGNED_PART);
+    }
+}
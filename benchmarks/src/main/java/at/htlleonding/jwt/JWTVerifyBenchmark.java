@@ -0,0 +1,68 @@
+package at.htlleonding.jwt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the {@code @JWTRequired} check. Run {@link #main(String[])} to fail the build when
+ * {@code verifyBearerHeader} allocates more than {@code -Dmax.alloc.bytes} (default 16) bytes per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTVerifyBenchmark {
+    private JWTService jwtService;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        jwtService = JwtFixtures.jwtService();
+        authorizationHeader = "Bearer " + jwtService.generateToken("test@gmail.com", 30);
+    }
+
+    @Benchmark
+    public boolean verifyBearerHeader() {
+        return jwtService.verifyToken(authorizationHeader, 7);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyWithClaims() {
+        return jwtService.verify(authorizationHeader, 7);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        double maxBytes = Double.parseDouble(System.getProperty("max.alloc.bytes", "16"));
+        Options options = new OptionsBuilder()
+                .include(JWTVerifyBenchmark.class.getName() + ".verifyBearerHeader")
+                .addProfiler(GCProfiler.class)
+                .build();
+        for (RunResult runResult : new Runner(options).run()) {
+            Result<?> allocation = runResult.getSecondaryResults().get("gc.alloc.rate.norm");
+            System.out.printf("%s: %.1f B/op%n", runResult.getParams().getBenchmark(), allocation.getScore());
+            if (allocation.getScore() > maxBytes) {
+                throw new IllegalStateException("Token verification allocates " + allocation.getScore()
+                        + " B/op, limit is " + maxBytes);
+            }
+        }
+    }
+}
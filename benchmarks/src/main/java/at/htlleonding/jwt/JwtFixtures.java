@@ -0,0 +1,21 @@
+package at.htlleonding.jwt;
+
+import at.htlleonding.keys.KeyRingFixtures;
+
+/**
+ * JWTService wired by hand for {@code algorithm}; asymmetric algorithms get a freshly generated key pair.
+ */
+public final class JwtFixtures {
+    private JwtFixtures() {
+    }
+
+    public static JWTService jwtService(String algorithm) {
+        JWTService jwtService = new JWTService();
+        jwtService.keyRing = KeyRingFixtures.keyRing(algorithm);
+        return jwtService;
+    }
+
+    public static JWTService jwtService() {
+        return jwtService(HmacTokenSigner.ALGORITHM);
+    }
+}
@@ -0,0 +1,25 @@
+package at.htlleonding.keys;
+
+import at.htlleonding.Fixtures;
+
+import java.util.Optional;
+
+/**
+ * A KeyRing without a ring file, holding the benchmark pepper and one token key for {@code algorithm}.
+ */
+public final class KeyRingFixtures {
+    private KeyRingFixtures() {
+    }
+
+    public static KeyRing keyRing(String algorithm) {
+        KeyRing keyRing = new KeyRing();
+        keyRing.credentialManager = Fixtures.credentialManager();
+        keyRing.location = Optional.empty();
+        keyRing.algorithm = algorithm;
+        keyRing.keyId = Optional.empty();
+        keyRing.privateKeyLocation = Optional.empty();
+        keyRing.publicKeyLocation = Optional.empty();
+        keyRing.init();
+        return keyRing;
+    }
+}
@@ -0,0 +1,293 @@
+package at.htlleonding.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator for POST /api/v1/login (or /register): {@code concurrency} clients, each on its own
+ * connection and virtual thread, send requests back to back for the given duration. In {@code register} mode every
+ * request creates a new user, so each one costs an Argon2 hash and a database insert. Reports throughput, latency percentiles and status
+ * codes, and samples the server's {@code /q/metrics} to report heap, non-heap and live threads at rest and at peak,
+ * i.e. the memory the server spends per concurrent connection.
+ * <p>
+ * {@code storm} mode is the login storm after an outage: the login clients run as in {@code login} mode, far beyond
+ * what the hashing pool can serve, while {@code concurrency / 20} already logged-in clients keep refreshing their
+ * tokens. It reports goodput (successful logins) per second, which should hold steady while the excess is shed, and
+ * how the refresh clients fared.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar at.htlleonding.load.LoginLoadTest <base-url> [concurrency] [seconds] [users] [login|register|storm]}
+ */
+public final class LoginLoadTest {
+    private static final String PASSWORD = "load-test-password";
+
+    private LoginLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LoginLoadTest <base-url> [concurrency] [seconds] [users] [login|register|storm]");
+            System.exit(2);
+        }
+        URI base = URI.create(args[0].endsWith("/") ? args[0] : args[0] + "/");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int userCount = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        String scenario = args.length > 4 ? args[4] : "login";
+        boolean register = scenario.equals("register");
+        boolean storm = scenario.equals("storm");
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        AtomicLong registered = new AtomicLong();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(clients)
+                    .build();
+
+            List<String> users = registerUsers(http, base, userCount);
+            ServerSample rest = ServerSample.scrape(http, base);
+            ServerSample peak = new ServerSample(rest.heapBytes, rest.nonHeapBytes, rest.liveThreads);
+
+            Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+            List<LatencyLog> latencies = new ArrayList<>();
+            AtomicLong errors = new AtomicLong();
+            long origin = System.nanoTime();
+            long deadline = origin + seconds * 1_000_000_000L;
+            AtomicLongArray goodput = new AtomicLongArray(seconds + 1);
+            List<Runnable> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                String user = users.get(i % users.size());
+                LatencyLog latencyLog = new LatencyLog();
+                latencies.add(latencyLog);
+                workers.add(() -> {
+                    HttpRequest login = jsonPost(base.resolve("api/v1/login"),
+                            "{\"username\":\"" + user + "\",\"password\":\"" + PASSWORD + "\"}");
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = register
+                                ? registerRequest(base, "load-" + runId + "-" + registered.incrementAndGet() + "@example.com")
+                                : login;
+                        long start = System.nanoTime();
+                        try {
+                            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            long end = System.nanoTime();
+                            latencyLog.add(end - start);
+                            statuses.computeIfAbsent(status, ignored -> new LongAdder()).increment();
+                            if (status < 300) {
+                                goodput.incrementAndGet(second(origin, end, seconds));
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+            Map<Integer, LongAdder> refreshStatuses = new ConcurrentHashMap<>();
+            List<LatencyLog> refreshLatencies = new ArrayList<>();
+            if (storm) {
+                for (int i = 0; i < Math.max(1, concurrency / 20); i++) {
+                    String user = users.get(i % users.size());
+                    LatencyLog latencyLog = new LatencyLog();
+                    refreshLatencies.add(latencyLog);
+                    workers.add(() -> refreshLoop(http, base, user, deadline, latencyLog, refreshStatuses));
+                }
+            }
+
+            long started = System.nanoTime();
+            List<Future<?>> running = new ArrayList<>();
+            for (Runnable worker : workers) {
+                running.add(clients.submit(worker));
+            }
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(1000);
+                peak = peak.max(ServerSample.scrape(http, base));
+            }
+            // Future.get also publishes each client's latency log to this thread
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+            double elapsed = (System.nanoTime() - started) / 1e9;
+
+            long[] all = latencies.stream().flatMapToLong(log -> Arrays.stream(log.toArray())).sorted().toArray();
+            System.out.printf("%s  %s  concurrency=%d  duration=%.1fs%n", base, scenario, concurrency, elapsed);
+            System.out.printf("requests      %d (%.1f/s), connection errors %d%n", all.length, all.length / elapsed, errors.get());
+            System.out.printf("status        %s%n", new TreeMap<>(statuses));
+            System.out.printf("latency ms    p50=%.1f  p90=%.1f  p99=%.1f  max=%.1f%n",
+                    percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+            StringBuilder timeline = new StringBuilder();
+            for (int second = 0; second < seconds; second++) {
+                timeline.append(second == 0 ? "" : " ").append(goodput.get(second));
+            }
+            System.out.printf("goodput/s     %s%n", timeline);
+            if (storm) {
+                long[] refreshes = refreshLatencies.stream().flatMapToLong(log -> Arrays.stream(log.toArray())).sorted().toArray();
+                System.out.printf("refresh       %d (%.1f/s), status %s%n", refreshes.length, refreshes.length / elapsed, new TreeMap<>(refreshStatuses));
+                System.out.printf("refresh ms    p50=%.1f  p99=%.1f  max=%.1f%n",
+                        percentile(refreshes, 0.50), percentile(refreshes, 0.99), percentile(refreshes, 1.0));
+            }
+            System.out.printf("server heap   %d MiB at rest, %d MiB peak%n", rest.heapBytes >> 20, peak.heapBytes >> 20);
+            System.out.printf("server other  %d MiB at rest, %d MiB peak (non-heap incl. thread metadata)%n",
+                    rest.nonHeapBytes >> 20, peak.nonHeapBytes >> 20);
+            System.out.printf("live threads  %d at rest, %d peak%n", rest.liveThreads, peak.liveThreads);
+            System.out.printf("per connection %.1f KiB memory, %.3f threads%n",
+                    (double) (peak.heapBytes + peak.nonHeapBytes - rest.heapBytes - rest.nonHeapBytes) / 1024 / concurrency,
+                    (double) (peak.liveThreads - rest.liveThreads) / concurrency);
+        }
+    }
+
+    /**
+     * One logged-in client of the storm scenario: logs in once (retrying while it is shed) and then exchanges its
+     * refresh token back to back, carrying the rotated token over from each response.
+     */
+    private static void refreshLoop(HttpClient http, URI base, String user, long deadline, LatencyLog latencyLog,
+                                    Map<Integer, LongAdder> statuses) {
+        HttpRequest login = jsonPost(base.resolve("api/v1/login"),
+                "{\"username\":\"" + user + "\",\"password\":\"" + PASSWORD + "\"}");
+        String refreshToken = null;
+        while (System.nanoTime() < deadline) {
+            try {
+                if (refreshToken == null) {
+                    HttpResponse<String> response = http.send(login, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200) {
+                        refreshToken = refreshToken(response.body());
+                    } else {
+                        Thread.sleep(100);
+                    }
+                    continue;
+                }
+                long start = System.nanoTime();
+                HttpResponse<String> response = http.send(jsonPost(base.resolve("api/v1/token/refresh"),
+                        "{\"refreshToken\":\"" + refreshToken + "\"}"), HttpResponse.BodyHandlers.ofString());
+                latencyLog.add(System.nanoTime() - start);
+                statuses.computeIfAbsent(response.statusCode(), ignored -> new LongAdder()).increment();
+                // a shed refresh keeps its token, any other failure starts over with a login
+                if (response.statusCode() == 200) {
+                    refreshToken = refreshToken(response.body());
+                } else if (response.statusCode() != 503) {
+                    refreshToken = null;
+                }
+            } catch (IOException e) {
+                statuses.computeIfAbsent(-1, ignored -> new LongAdder()).increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static String refreshToken(String tokenJson) {
+        String field = "\"refreshToken\":\"";
+        int start = tokenJson.indexOf(field) + field.length();
+        return tokenJson.substring(start, tokenJson.indexOf('"', start));
+    }
+
+    private static int second(long origin, long nanos, int seconds) {
+        return (int) Math.min(seconds, (nanos - origin) / 1_000_000_000L);
+    }
+
+    /**
+     * Registers the load-test users; a 400 means the user is left over from an earlier run, which is fine.
+     */
+    private static List<String> registerUsers(HttpClient http, URI base, int count) throws IOException, InterruptedException {
+        List<String> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = "load-" + i + "@example.com";
+            HttpResponse<Void> response = http.send(registerRequest(base, username), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 201 && response.statusCode() != 400) {
+                throw new IllegalStateException("Registering " + username + " failed with " + response.statusCode());
+            }
+            users.add(username);
+        }
+        return users;
+    }
+
+    private static HttpRequest registerRequest(URI base, String username) {
+        return jsonPost(base.resolve("api/v1/register"),
+                "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\",\"telephoneNumber\":\"+43000000\"}");
+    }
+
+    private static HttpRequest jsonPost(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(quantile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Latencies of one client, appended without synchronization since each client owns its log.
+     */
+    private static final class LatencyLog {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * JVM memory and thread gauges read from the server's Prometheus endpoint.
+     */
+    private record ServerSample(long heapBytes, long nonHeapBytes, long liveThreads) {
+        static ServerSample scrape(HttpClient http, URI base) throws IOException, InterruptedException {
+            String metrics = http.send(HttpRequest.newBuilder(base.resolve("q/metrics")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            long heap = 0;
+            long nonHeap = 0;
+            long threads = 0;
+            for (String line : metrics.split("\n")) {
+                if (line.startsWith("jvm_memory_used_bytes{")) {
+                    long value = (long) Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+                    if (line.contains("area=\"heap\"")) {
+                        heap += value;
+                    } else {
+                        nonHeap += value;
+                    }
+                } else if (line.startsWith("jvm_threads_live_threads")) {
+                    threads = (long) Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+                }
+            }
+            return new ServerSample(heap, nonHeap, threads);
+        }
+
+        ServerSample max(ServerSample other) {
+            return new ServerSample(Math.max(heapBytes, other.heapBytes), Math.max(nonHeapBytes, other.nonHeapBytes),
+                    Math.max(liveThreads, other.liveThreads));
+        }
+    }
+}
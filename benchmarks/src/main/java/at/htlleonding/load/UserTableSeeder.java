@@ -0,0 +1,102 @@
+package at.htlleonding.load;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Fills the service's {@code users} table up to {@code rows} rows and adds or drops the unique username index, so
+ * that {@link LoginLoadTest} measures login and register latency through the service on a table with millions of
+ * rows, with and without the index. The seeded users cannot log in; the load test registers its own on top of them.
+ * Uses the MySQL instance given by -Ddb.url / -Ddb.username / -Ddb.password.
+ * <p>
+ * {@code plain} removes the constraint that the service relies on to detect duplicate usernames; only use it on a
+ * benchmark database, and run again with {@code indexed} afterwards.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar at.htlleonding.load.UserTableSeeder [rows] [indexed|plain]}
+ */
+public final class UserTableSeeder {
+    private static final String USERNAME_CONSTRAINT = "uk_users_username";
+    private static final int BATCH = 10_000;
+
+    private UserTableSeeder() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        boolean indexed = args.length < 2 || args[1].equals("indexed");
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("db.url", "jdbc:mysql://127.0.0.1:3306/quarkus?rewriteBatchedStatements=true"),
+                System.getProperty("db.username", "root"),
+                System.getProperty("db.password", ""))) {
+            long existing = count(connection);
+            if (existing < rows) {
+                seed(connection, existing, rows);
+            }
+            boolean hasIndex = hasUsernameIndex(connection);
+            try (Statement statement = connection.createStatement()) {
+                if (indexed && !hasIndex) {
+                    statement.execute("alter table users add constraint " + USERNAME_CONSTRAINT + " unique (username)");
+                } else if (!indexed && hasIndex) {
+                    statement.execute("alter table users drop index " + USERNAME_CONSTRAINT);
+                }
+            }
+            System.out.printf("users: %d rows, %s%n", Math.max(existing, rows), indexed ? "indexed" : "no username index");
+        }
+    }
+
+    private static long count(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("select count(*) from users")) {
+            count.next();
+            return count.getLong(1);
+        }
+    }
+
+    private static void seed(Connection connection, long from, int rows) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement seed = connection.prepareStatement(
+                "insert into users (id, password, telephone_number, username) values (?, ?, ?, ?)")) {
+            for (long i = from; i < rows; i++) {
+                seed.setBytes(1, uuidBytes(UUID.randomUUID()));
+                seed.setString(2, "$argon2id$v=19$m=65536,t=2,p=1$c2FsdHNhbHRzYWx0$aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNoaGFzaA");
+                seed.setString(3, "+43123456789");
+                seed.setString(4, "seed-" + UUID.randomUUID() + "@example.com");
+                seed.addBatch();
+                if (i % BATCH == BATCH - 1) {
+                    seed.executeBatch();
+                    connection.commit();
+                }
+            }
+            seed.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static boolean hasUsernameIndex(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, "users", true, false)) {
+            while (indexes.next()) {
+                if (USERNAME_CONSTRAINT.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[] uuidBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
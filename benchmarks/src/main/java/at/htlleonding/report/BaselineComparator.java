@@ -0,0 +1,88 @@
+package at.htlleonding.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline and exits non-zero when a benchmark regressed by more
+ * than the tolerance: lower throughput, higher time per operation, or more bytes allocated per operation.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar at.htlleonding.report.BaselineComparator baseline.json results.json [tolerance-percent]}
+ */
+public final class BaselineComparator {
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <results.json> [tolerance-percent]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %s%n", entry.getKey());
+                continue;
+            }
+            Score after = entry.getValue();
+            double change = (after.value - before.value) / before.value;
+            boolean regressed = after.higherIsBetter ? change < -tolerance : change > tolerance;
+            System.out.printf("%-10s %s: %.3f -> %.3f %s (%+.1f%%)%n", regressed ? "REGRESSED" : "ok",
+                    entry.getKey(), before.value, after.value, after.unit, change * 100);
+            if (regressed) {
+                regressions++;
+            }
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, tolerance * 100);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Flattens a JMH result file into one score per benchmark, mode and parameter set, plus one allocation score
+     * per entry when the GC profiler was active.
+     */
+    static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                    .append(" [").append(result.path("mode").asText()).append(']');
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            JsonNode primary = result.path("primaryMetric");
+            String unit = primary.path("scoreUnit").asText();
+            scores.put(key.toString(), new Score(primary.path("score").asDouble(), unit, unit.endsWith("/s")
+                    || unit.startsWith("ops/")));
+
+            Iterator<Map.Entry<String, JsonNode>> secondary = result.path("secondaryMetrics").fields();
+            while (secondary.hasNext()) {
+                Map.Entry<String, JsonNode> metric = secondary.next();
+                if (metric.getKey().replace("·", "").equals(ALLOCATION_METRIC)) {
+                    scores.put(key + " alloc", new Score(metric.getValue().path("score").asDouble(),
+                            metric.getValue().path("scoreUnit").asText(), false));
+                }
+            }
+        }
+        return scores;
+    }
+
+    record Score(double value, String unit, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,152 @@
+package at.htlleonding.repository;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.api.configuration.supplier.AgroalConnectionFactoryConfigurationSupplier;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.api.security.NamePrincipal;
+import io.agroal.api.security.SimplePassword;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findByUsername throughput through an Agroal pool with Quarkus' defaults versus the %prod settings in
+ * application.properties (pool sizing plus the Connector/J statement caching properties). Every operation borrows
+ * a connection and prepares the statement, as Hibernate does per query, so statement caching and pool contention
+ * both show. Needs MySQL, given by -Ddb.url / -Ddb.username / -Ddb.password.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class DataSourceTuningBenchmark {
+    private static final String TABLE = "bench_users_tuning";
+    private static final String FIND_BY_USERNAME =
+            "select id, password, telephone_number, username from " + TABLE + " where username = ?";
+
+    /** The driver properties of the %prod profile. */
+    private static final Map<String, String> TUNED_DRIVER = Map.of(
+            "useServerPrepStmts", "true",
+            "cachePrepStmts", "true",
+            "prepStmtCacheSize", "256",
+            "prepStmtCacheSqlLimit", "2048",
+            "rewriteBatchedStatements", "true",
+            "useLocalSessionState", "true",
+            "cacheServerConfiguration", "true",
+            "elideSetAutoCommits", "true",
+            "maintainTimeStats", "false");
+
+    @Param({"100000"})
+    int rows;
+
+    @Param({"default", "tuned"})
+    String settings;
+
+    private AgroalDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        boolean tuned = settings.equals("tuned");
+        AgroalDataSourceConfigurationSupplier configuration = new AgroalDataSourceConfigurationSupplier()
+                .metricsEnabled(true)
+                .connectionPoolConfiguration(pool -> pool
+                        .initialSize(tuned ? 8 : 0)
+                        .minSize(tuned ? 8 : 0)
+                        .maxSize(tuned ? 32 : 20)
+                        .acquisitionTimeout(Duration.ofSeconds(tuned ? 2 : 5))
+                        .connectionFactoryConfiguration(factory -> driver(factory, tuned)));
+        dataSource = AgroalDataSource.from(configuration);
+        seed();
+    }
+
+    private static AgroalConnectionFactoryConfigurationSupplier driver(AgroalConnectionFactoryConfigurationSupplier factory, boolean tuned) {
+        factory.jdbcUrl(System.getProperty("db.url", "jdbc:mysql://127.0.0.1:3306/quarkus"))
+                .principal(new NamePrincipal(System.getProperty("db.username", "root")))
+                .credential(new SimplePassword(System.getProperty("db.password", "")));
+        if (tuned) {
+            TUNED_DRIVER.forEach(factory::jdbcProperty);
+        }
+        return factory;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AgroalDataSourceMetrics metrics = dataSource.getMetrics();
+        System.out.printf("%n[%s] acquisitions=%d, max used=%d, blocking time avg=%s max=%s%n", settings,
+                metrics.acquireCount(), metrics.maxUsedCount(), metrics.blockingTimeAverage(), metrics.blockingTimeMax());
+        dataSource.close();
+    }
+
+    private void seed() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists " + TABLE + " ("
+                    + "id binary(16) not null primary key, password varchar(255) not null, "
+                    + "telephone_number varchar(255) not null, username varchar(255) not null, "
+                    + "constraint uk_" + TABLE + " unique (username))");
+            try (ResultSet count = statement.executeQuery("select count(*) from " + TABLE)) {
+                count.next();
+                if (count.getLong(1) >= rows) {
+                    return;
+                }
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert ignore into " + TABLE + " (id, password, telephone_number, username) values (?, ?, ?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    UUID id = UUID.randomUUID();
+                    insert.setBytes(1, ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array());
+                    insert.setString(2, "$argon2id$v=19$m=65536,t=2,p=1$c2FsdHNhbHRzYWx0$aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNoaGFzaA");
+                    insert.setString(3, "+43123456789");
+                    insert.setString(4, "user" + i + "@example.com");
+                    insert.addBatch();
+                    if (i % 10_000 == 9_999) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean findByUsername() throws SQLException {
+        String username = "user" + ThreadLocalRandom.current().nextInt(rows) + "@example.com";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_USERNAME)) {
+            statement.setString(1, username);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package at.htlleonding.repository;
+
+import at.htlleonding.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The queries behind LoginPanacheRepository.findByUsername and findExistingUsernames (the bulk import's duplicate
+ * check for a chunk of {@code chunk} usernames), run through Hibernate against an
+ * embedded H2 database with the production mapping of {@link User}. This isolates ORM overhead (query parsing,
+ * hydration, persistence context) from network and MySQL costs, which UsernameLookupBenchmark covers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryLookupBenchmark {
+    @Param({"10000"})
+    int rows;
+
+    @Param({"500"})
+    int chunk;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", "50")
+                .setProperty("jakarta.persistence.validation.mode", "none")
+                .buildSessionFactory();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < rows; i++) {
+                session.persist(new User(username(i), "$argon2id$v=19$m=65536,t=2,p=1$c2FsdA$aGFzaA", "+43123456789"));
+                if (i % 50 == 49) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    private String randomUsername() {
+        return username(ThreadLocalRandom.current().nextInt(rows));
+    }
+
+    private static String username(int i) {
+        return "user" + i + "@example.com";
+    }
+
+    @Benchmark
+    public User findByUsername() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createSelectionQuery("from User where username = ?1", User.class)
+                    .setParameter(1, randomUsername())
+                    .setMaxResults(1)
+                    .uniqueResult();
+        }
+    }
+
+    @Benchmark
+    public List<String> findExistingUsernames() {
+        List<String> usernames = new ArrayList<>(chunk);
+        for (int i = 0; i < chunk; i++) {
+            usernames.add(i % 2 == 0 ? randomUsername() : "new" + i + "@example.com");
+        }
+        try (Session session = sessionFactory.openSession()) {
+            return session.createSelectionQuery("select u.username from User u where u.username in :usernames", String.class)
+                    .setParameter("usernames", usernames)
+                    .getResultList();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package at.htlleonding.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SQL behind login and register on a users table with millions of rows, with and without the unique username
+ * index: the statements Hibernate issues for findByUsername and the insert, without the service around them. For the
+ * latency through the service, seed the service's table with UserTableSeeder and run LoginLoadTest. Needs the MySQL
+ * instance given by -Ddb.url / -Ddb.username / -Ddb.password; the table is seeded once per parameter set.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsernameLookupBenchmark {
+    @Param({"2000000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement findByUsername;
+    private PreparedStatement insert;
+    private String table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("db.url", "jdbc:mysql://127.0.0.1:3306/quarkus?rewriteBatchedStatements=true"),
+                System.getProperty("db.username", "root"),
+                System.getProperty("db.password", ""));
+        table = "bench_users_" + rows + (indexed ? "_indexed" : "_plain");
+        seed();
+        findByUsername = connection.prepareStatement(
+                "select id, password, telephone_number, username from " + table + " where username = ?");
+        insert = connection.prepareStatement(
+                "insert into " + table + " (id, password, telephone_number, username) values (?, ?, ?, ?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("delete from " + table + " where username like 'new-%'");
+        }
+        connection.close();
+    }
+
+    private void seed() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists " + table + " ("
+                    + "id binary(16) not null primary key, password varchar(255) not null, "
+                    + "telephone_number varchar(255) not null, username varchar(255) not null"
+                    + (indexed ? ", constraint uk_" + table + " unique (username)" : "") + ")");
+            try (ResultSet count = statement.executeQuery("select count(*) from " + table)) {
+                count.next();
+                if (count.getLong(1) >= rows) {
+                    return;
+                }
+            }
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement seed = connection.prepareStatement(
+                "insert into " + table + " (id, password, telephone_number, username) values (?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                seed.setBytes(1, uuidBytes(UUID.randomUUID()));
+                seed.setString(2, "$argon2id$v=19$m=65536,t=2,p=1$c2FsdHNhbHRzYWx0$aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNoaGFzaA");
+                seed.setString(3, "+43123456789");
+                seed.setString(4, "user" + i + "@example.com");
+                seed.addBatch();
+                if (i % 10_000 == 9_999) {
+                    seed.executeBatch();
+                    connection.commit();
+                }
+            }
+            seed.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private String randomExistingUsername() {
+        return "user" + ThreadLocalRandom.current().nextInt(rows) + "@example.com";
+    }
+
+    /**
+     * The login path: load the credentials of an existing user.
+     */
+    @Benchmark
+    public boolean login() throws SQLException {
+        findByUsername.setString(1, randomExistingUsername());
+        try (ResultSet resultSet = findByUsername.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * The former register path: load the entity to check for a duplicate, then insert.
+     */
+    @Benchmark
+    public boolean registerWithLookup() throws SQLException {
+        String username = "new-" + UUID.randomUUID() + "@example.com";
+        findByUsername.setString(1, username);
+        try (ResultSet resultSet = findByUsername.executeQuery()) {
+            if (resultSet.next()) {
+                return false;
+            }
+        }
+        return insert(username);
+    }
+
+    /**
+     * The current register path: insert and let the unique constraint reject duplicates.
+     */
+    @Benchmark
+    public boolean registerWithConstraint() throws SQLException {
+        return insert("new-" + UUID.randomUUID() + "@example.com");
+    }
+
+    private boolean insert(String username) throws SQLException {
+        insert.setBytes(1, uuidBytes(UUID.randomUUID()));
+        insert.setString(2, "hash");
+        insert.setString(3, "+43123456789");
+        insert.setString(4, username);
+        try {
+            return insert.executeUpdate() == 1;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            return false;
+        }
+    }
+
+    private static byte[] uuidBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,37 @@
+package at.htlleonding.token;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+
+/**
+ * A synced {@link TokenRevocationService} without a database: the filter holds {@code revoked} ids expiring in 30
+ * minutes and the store answers "not revoked" for every filter false positive.
+ */
+public final class RevocationFixtures {
+    private RevocationFixtures() {
+    }
+
+    public static TokenRevocationService revocations(int revoked) {
+        TokenRevocationService revocations = new TokenRevocationService();
+        revocations.slot = Duration.ofMinutes(5);
+        revocations.horizon = Duration.ofHours(1);
+        revocations.expectedPerSlot = 10_000;
+        revocations.fpp = 0.01;
+        revocations.overlap = Duration.ofSeconds(10);
+        revocations.registry = new SimpleMeterRegistry();
+        revocations.revokedRepo = new RevokedTokenRepository() {
+            @Override
+            public boolean isRevoked(String jti) {
+                return false;
+            }
+        };
+        revocations.init();
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < revoked; i++) {
+            revocations.filter.add("revoked-" + i, now + 1800, now);
+        }
+        revocations.synced = true;
+        return revocations;
+    }
+}
@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Measures time from process start to the first successful login, and the resident memory at that point, for the
+# JVM build and the native build of login-service. Needs the same environment as the service (datasource, PEPPER,
+# SECRET_KEY) and a MySQL instance; run on Linux, since RSS is read from /proc.
+#
+#   ./startup.sh [runs]
+#   MODES=native PORT=8090 ./startup.sh 10
+#
+# Build first: mvn package (JVM) and mvn package -Dnative (native), in the project root.
+set -e
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+MODES=${MODES:-"jvm native"}
+PORT=${PORT:-8080}
+URL="http://localhost:$PORT/api/v1"
+USER_JSON='{"username":"startup@example.com","password":"startup-password","telephoneNumber":"+43000000"}'
+LOGIN_JSON='{"username":"startup@example.com","password":"startup-password"}'
+
+command_for() {
+    case "$1" in
+        jvm) echo "java -Dquarkus.http.port=$PORT -jar target/quarkus-app/quarkus-run.jar" ;;
+        native) echo "$(ls target/*-runner | head -n 1) -Dquarkus.http.port=$PORT" ;;
+    esac
+}
+
+post() {
+    curl -s -o /dev/null -w '%{http_code}' -H 'Content-Type: application/json' -d "$2" "$URL/$1" || true
+}
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Starts the server, waits until a login succeeds and prints "<ms> <rss KiB>"
+measure() {
+    local mode=$1
+    local start pid status rss
+    start=$(now_ms)
+    $(command_for "$mode") > "target/startup-$mode.log" 2>&1 &
+    pid=$!
+    until [ "$(post login "$LOGIN_JSON")" = 200 ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "$mode server exited, see target/startup-$mode.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    status=$(( $(now_ms) - start ))
+    rss=$(awk '/VmRSS/ { print $2 }' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$status $rss"
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+for mode in $MODES; do
+    if [ "$mode" = native ] && ! ls target/*-runner > /dev/null 2>&1; then
+        echo "Skipping native: no target/*-runner, build it with mvn package -Dnative"
+        continue
+    fi
+    # the first start only makes sure the user exists; a 400 means it is left over from an earlier run
+    $(command_for "$mode") > "target/startup-$mode.log" 2>&1 &
+    pid=$!
+    until [[ "$(post register "$USER_JSON")" =~ ^(201|400)$ ]]; do sleep 0.1; done
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+
+    results=()
+    for run in $(seq "$RUNS"); do
+        results+=("$(measure "$mode")")
+        echo "$mode run $run: ${results[-1]% *} ms to first login, $(( ${results[-1]#* } / 1024 )) MiB RSS"
+    done
+    ms=$(printf '%s\n' "${results[@]}" | cut -d' ' -f1 | median)
+    rss=$(printf '%s\n' "${results[@]}" | cut -d' ' -f2 | median)
+    echo "$mode median: $ms ms to first login, $(( rss / 1024 )) MiB RSS"
+    echo
+done
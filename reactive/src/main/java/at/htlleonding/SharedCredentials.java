@@ -0,0 +1,17 @@
+package at.htlleonding;
+
+/**
+ * Builds a {@link CredentialManager} from explicit values for code that uses login-service's classes without its
+ * CDI container.
+ */
+public final class SharedCredentials {
+    private SharedCredentials() {
+    }
+
+    public static CredentialManager of(String pepper, String secret) {
+        CredentialManager credentialManager = new CredentialManager();
+        credentialManager.pepper = pepper;
+        credentialManager.secret = secret;
+        return credentialManager;
+    }
+}
@@ -0,0 +1,20 @@
+package at.htlleonding.jwt;
+
+import at.htlleonding.keys.KeyRing;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+/**
+ * login-service's classes are not bean-indexed here (that would pull in its blocking resources), so the shared
+ * {@link JWTService} is wired by hand. It lives in {@code at.htlleonding.jwt} to reach the package-private setup.
+ */
+@Singleton
+public class JWTServiceProducer {
+    @Produces
+    @Singleton
+    JWTService jwtService(KeyRing keyRing) {
+        JWTService jwtService = new JWTService();
+        jwtService.keyRing = keyRing;
+        return jwtService;
+    }
+}
@@ -0,0 +1,35 @@
+package at.htlleonding.keys;
+
+import at.htlleonding.SharedCredentials;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * The shared {@link KeyRing}, wired by hand like {@link at.htlleonding.jwt.JWTServiceProducer}. Pointing
+ * {@code keyring.location} at the same file as login-service keeps both apps on the same peppers and token keys.
+ */
+@Singleton
+public class KeyRingProducer {
+    @Produces
+    @Singleton
+    KeyRing keyRing(@ConfigProperty(name = "pepper") String pepper, @ConfigProperty(name = "secret") String secret,
+                    @ConfigProperty(name = "keyring.location") Optional<Path> location,
+                    @ConfigProperty(name = "jwt.algorithm", defaultValue = "HS256") String algorithm,
+                    @ConfigProperty(name = "jwt.key-id") Optional<String> keyId,
+                    @ConfigProperty(name = "jwt.private-key.location") Optional<Path> privateKeyLocation,
+                    @ConfigProperty(name = "jwt.public-key.location") Optional<Path> publicKeyLocation) {
+        KeyRing keyRing = new KeyRing();
+        keyRing.credentialManager = SharedCredentials.of(pepper, secret);
+        keyRing.location = location;
+        keyRing.algorithm = algorithm;
+        keyRing.keyId = keyId;
+        keyRing.privateKeyLocation = privateKeyLocation;
+        keyRing.publicKeyLocation = publicKeyLocation;
+        keyRing.init();
+        return keyRing;
+    }
+}
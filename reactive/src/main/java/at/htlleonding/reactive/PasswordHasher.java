@@ -0,0 +1,108 @@
+package at.htlleonding.reactive;
+
+import at.htlleonding.keys.KeyRing;
+import at.htlleonding.keys.Keys;
+import at.htlleonding.keys.PepperedHash;
+import de.mkammerer.argon2.Argon2;
+import de.mkammerer.argon2.Argon2Factory;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs Argon2 on a bounded worker pool, sized like the blocking service's hashing pool, and resumes on the
+ * caller's Vert.x context so the pipeline can go on to Hibernate Reactive without leaving the event loop.
+ * When the pool and its queue are full the returned Uni fails with a {@link java.util.concurrent.RejectedExecutionException}.
+ * Hashes carry the pepper version like login-service's (see {@link PepperedHash}), so both apps read each other's.
+ */
+@ApplicationScoped
+@Slf4j
+public class PasswordHasher {
+    private static final long MIB = 1024L * 1024L;
+
+    @Inject
+    KeyRing keyRing;
+
+    @ConfigProperty(name = "argon2.iterations", defaultValue = "2")
+    int iterations;
+
+    @ConfigProperty(name = "argon2.memory-kb", defaultValue = "65536")
+    int memoryKb;
+
+    @ConfigProperty(name = "argon2.parallelism", defaultValue = "1")
+    int parallelism;
+
+    @ConfigProperty(name = "hashing.pool-size")
+    Optional<Integer> poolSize;
+
+    @ConfigProperty(name = "hashing.queue-capacity", defaultValue = "64")
+    int queueCapacity;
+
+    @ConfigProperty(name = "hashing.memory-budget-mb", defaultValue = "512")
+    long memoryBudgetMb;
+
+    private final Argon2 argon2 = Argon2Factory.create();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        int threads = poolSize.orElseGet(() -> (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                memoryBudgetMb * MIB / (memoryKb * 1024L))));
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "argon2-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        log.info("Hashing pool started with {} threads and a queue of {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public Uni<String> hash(String password) {
+        return offload(() -> {
+            Keys keys = keyRing.keys();
+            String hash = argon2.hash(iterations, memoryKb, parallelism, (password + keys.activePepper()).toCharArray());
+            return PepperedHash.format(keys.activePepperVersion(), hash);
+        });
+    }
+
+    public Uni<Boolean> verify(String storedHash, String password) {
+        return offload(() -> {
+            int pepperVersion = PepperedHash.version(storedHash);
+            String pepper = keyRing.keys().pepper(pepperVersion);
+            if (pepper == null) {
+                throw new IllegalStateException("Pepper version " + pepperVersion + " is no longer in the key ring");
+            }
+            return argon2.verify(PepperedHash.argon2(storedHash), (password + pepper).toCharArray());
+        });
+    }
+
+    private <T> Uni<T> offload(Supplier<T> task) {
+        Uni<T> onPool = Uni.createFrom().item(task).runSubscriptionOn(executor);
+        Context context = Vertx.currentContext();
+        if (context == null) {
+            return onPool;
+        }
+        Executor backOnContext = command -> context.runOnContext(ignored -> command.run());
+        return onPool.emitOn(backOnContext);
+    }
+}
@@ -0,0 +1,132 @@
+package at.htlleonding.reactive;
+
+import at.htlleonding.dtos.LoginDto;
+import at.htlleonding.dtos.RegisterDto;
+import at.htlleonding.jwt.JWTService;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mysqlclient.MySQLException;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Register and login on the event loop: the database work goes through Hibernate Reactive and only Argon2 runs on
+ * {@link PasswordHasher}'s pool, so no thread is parked while a request waits on MySQL or on a hashing slot.
+ * <p>
+ * This is a stripped-down variant for comparing the I/O models, not a replacement for the blocking
+ * {@code LoginResource}. Registration applies the same validation, and status codes match for the common cases, but
+ * there is no login throttle or lockout, no admission control, and a successful login only returns the access token
+ * in the {@code Authorization} header: no {@code TokenDto} body and no refresh token.
+ */
+@Consumes(MediaType.APPLICATION_JSON)
+@Path("/api/v1")
+@Produces(MediaType.APPLICATION_JSON)
+@Slf4j
+public class ReactiveLoginResource {
+    private static final int DUPLICATE_ENTRY = 1062;
+
+    @Inject
+    UserRepository userRepo;
+
+    @Inject
+    PasswordHasher passwordHasher;
+
+    @Inject
+    JWTService jwtService;
+
+    @Inject
+    Validator validator;
+
+    @POST
+    @Path("/register")
+    public Uni<Response> register(RegisterDto user) {
+        log.debug("register + hash and salt pw");
+        String error = checkArguments(user);
+        if (error != null) {
+            return Uni.createFrom().item(Response.status(400, error).build());
+        }
+        User newUser = new User(user.getUsername(), user.getPassword(), user.getTelephoneNumber());
+        Set<ConstraintViolation<User>> violations = validator.validate(newUser);
+        if (!violations.isEmpty()) {
+            return Uni.createFrom().item(Response.status(400, violations.iterator().next().getMessage()).build());
+        }
+        return passwordHasher.hash(user.getPassword())
+                .chain(hash -> {
+                    newUser.setPassword(hash);
+                    return Panache.withTransaction(() -> userRepo.addUser(newUser));
+                })
+                .map(ignored -> Response.status(201).build())
+                .onFailure(ReactiveLoginResource::isDuplicateUsername)
+                .recoverWithItem(() -> Response.status(400, "Username already exists!").build())
+                .onFailure(RejectedExecutionException.class)
+                .recoverWithItem(ReactiveLoginResource::serviceUnavailable);
+    }
+
+    @POST
+    @Path("/login")
+    public Uni<Response> login(LoginDto user) {
+        log.debug("login");
+        if (user == null || user.getUsername() == null || user.getPassword() == null) {
+            return Uni.createFrom().item(Response.status(400).build());
+        }
+        return Panache.withSession(() -> userRepo.findByUsername(user.getUsername()))
+                .chain(stored -> stored == null
+                        ? Uni.createFrom().item(Boolean.FALSE)
+                        : passwordHasher.verify(stored.getPassword(), user.getPassword()))
+                .map(valid -> {
+                    if (!valid) {
+                        return Response.status(400).build();
+                    }
+                    String token = jwtService.generateToken(user.getUsername(), 30);
+                    return Response.ok().header("Authorization", "Bearer " + token).build();
+                })
+                .onFailure(RejectedExecutionException.class)
+                .recoverWithItem(ReactiveLoginResource::serviceUnavailable)
+                .onFailure()
+                .recoverWithItem(() -> Response.status(401).build());
+    }
+
+    private static String checkArguments(RegisterDto user) {
+        if (user == null) {
+            return "Body must not be empty";
+        }
+        if (user.getPassword() == null || user.getPassword().isEmpty()) {
+            return "Password must not be empty";
+        }
+        if (user.getUsername() == null || user.getUsername().isEmpty()) {
+            return "Username must not be empty";
+        }
+        if (user.getTelephoneNumber() == null || user.getTelephoneNumber().isEmpty()) {
+            return "Telephone Number must not be empty";
+        }
+        return null;
+    }
+
+    static boolean isDuplicateUsername(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String constraint = violation.getConstraintName();
+                return constraint != null && constraint.toLowerCase().contains(User.USERNAME_CONSTRAINT);
+            }
+            if (cause instanceof MySQLException mysql) {
+                return mysql.getErrorCode() == DUPLICATE_ENTRY;
+            }
+        }
+        return false;
+    }
+
+    private static Response serviceUnavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", 1)
+                .build();
+    }
+}
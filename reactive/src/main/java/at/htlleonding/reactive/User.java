@@ -0,0 +1,43 @@
+package at.htlleonding.reactive;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * The {@code users} table as seen by the reactive stack. The mapping and the validation constraints must stay in
+ * line with {@code at.htlleonding.User}, which owns the schema.
+ */
+@Getter
+@Setter
+@ToString(exclude = "password")
+@NoArgsConstructor
+@Entity
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"))
+public class User {
+    public static final String USERNAME_CONSTRAINT = at.htlleonding.User.USERNAME_CONSTRAINT;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @NotNull
+    @Pattern(regexp = "^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$", message = "Email must be valid")
+    private String username;
+
+    @NotNull
+    @Pattern(regexp = "^(\\+|)\\d+$", message = "Telephone number must be valid")
+    private String telephoneNumber;
+
+    @NotNull
+    private String password;
+
+    public User(String username, String password, String telephoneNumber) {
+        this.username = username;
+        this.password = password;
+        this.telephoneNumber = telephoneNumber;
+    }
+}
@@ -0,0 +1,21 @@
+package at.htlleonding.reactive;
+
+import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.UUID;
+
+@ApplicationScoped
+public class UserRepository implements PanacheRepositoryBase<User, UUID> {
+    public Uni<User> findByUsername(String username) {
+        return find("username", username).firstResult();
+    }
+
+    /**
+     * Inserts and flushes, so that a duplicate username fails this Uni with the constraint violation.
+     */
+    public Uni<User> addUser(User user) {
+        return persistAndFlush(user);
+    }
+}
@@ -0,0 +1,89 @@
+package at.htlleonding.reactive;
+
+import at.htlleonding.dtos.LoginDto;
+import at.htlleonding.dtos.RegisterDto;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+public class ReactiveLoginResourceTest {
+
+    private static String uniqueUsername() {
+        return "reactive-" + UUID.randomUUID() + "@gmail.com";
+    }
+
+    private static void register(RegisterDto user, int expectedStatus) {
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(user)
+                .when()
+                .post("/api/v1/register")
+                .then()
+                .statusCode(expectedStatus);
+    }
+
+    @Test
+    @DisplayName("Should register a user and log it in")
+    void testRegisterAndLogin() {
+        String username = uniqueUsername();
+        register(new RegisterDto(username, "password123", "+123456789"), 201);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(username, "password123"))
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(200)
+                .header("Authorization", startsWith("Bearer"));
+    }
+
+    @Test
+    @DisplayName("Should reject a wrong password")
+    void testLoginWrongPassword() {
+        String username = uniqueUsername();
+        register(new RegisterDto(username, "password123", "+123456789"), 201);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(username, "wrongpassword"))
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("Should reject a duplicate username")
+    void testRegisterDuplicate() {
+        String username = uniqueUsername();
+        register(new RegisterDto(username, "password123", "+123456789"), 201);
+        register(new RegisterDto(username, "password456", "+123456789"), 400);
+    }
+
+    @Test
+    @DisplayName("Should validate email and telephone number like the blocking service")
+    void testRegisterInvalid() {
+        register(new RegisterDto("not-an-email", "password123", "+123456789"), 400);
+        register(new RegisterDto(uniqueUsername(), "password123", "call me"), 400);
+        register(new RegisterDto(uniqueUsername(), "", "+123456789"), 400);
+    }
+
+    @Test
+    @DisplayName("Should answer 400 to a login without body")
+    void testLoginWithoutBody() {
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(400);
+    }
+}
@@ -2,24 +2,76 @@ package at.htlleonding;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @ApplicationScoped
 public class LoginPanacheRepository implements PanacheRepositoryBase<User, UUID> {
+    /**
+     * Persists new users, flushing and clearing the persistence context every {@code flushSize} entities so that
+     * Hibernate sends them as JDBC batches and memory stays flat for large imports.
+     */
+    public void addUsers(List<User> users, int flushSize) {
+        for (int i = 0; i < users.size(); i++) {
+            persist(users.get(i));
+            if ((i + 1) % flushSize == 0) {
+                flush();
+                getEntityManager().clear();
+            }
+        }
+        flush();
+        getEntityManager().clear();
+    }
     public void updateUser(User user) {
         getEntityManager().merge(user);
     }
+    /**
+     * Inserts the user with a plain persist (no SELECT-before-INSERT as with merge) and flushes, so that a
+     * duplicate username surfaces here as a constraint violation.
+     */
     public void addUser(User user) {
-        getEntityManager().merge(user);
+        persist(user);
+        flush();
     }
     public void deleteUser(User user) {
         getEntityManager().remove(user);
     }
-    public void deleteUserByName(String username) {
-        getEntityManager().remove(findByUsername(username));
+    /**
+     * Bulk JPQL delete; the entity is never loaded.
+     */
+    public long deleteUserByName(String username) {
+        return delete("username", username);
+    }
+    public int updatePassword(UUID id, String passwordHash) {
+        return update("password = ?1 where id = ?2", passwordHash, id);
     }
+    /**
+     * Sets a new password provided the stored one is still {@code expectedHash}.
+     *
+     * @return the number of updated rows, 0 if the password was changed in the meantime
+     */
+    public int replacePassword(UUID id, String expectedHash, String passwordHash) {
+        return update("password = ?1 where id = ?2 and password = ?3", passwordHash, id, expectedHash);
+    }
+    /**
+     * Read-only lookup that needs no transaction: outside of one it runs in a request-scoped session, and the
+     * entity is loaded without a snapshot for dirty checking.
+     */
+    @ActivateRequestContext
     public User findByUsername(String username) {
-        return find("username", username).firstResult();
+        return find("username", username)
+                .withHint(HibernateHints.HINT_READ_ONLY, true)
+                .firstResult();
+    }
+    @ActivateRequestContext
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        return getEntityManager()
+                .createQuery("select u.username from User u where u.username in :usernames", String.class)
+                .setParameter("usernames", usernames)
+                .getResultList();
     }
 }
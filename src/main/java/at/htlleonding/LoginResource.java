@@ -1,82 +1,306 @@
 package at.htlleonding;
 
+import at.htlleonding.admission.AdmissionControlled;
 import at.htlleonding.dtos.LoginDto;
+import at.htlleonding.dtos.RefreshTokenDto;
 import at.htlleonding.dtos.RegisterDto;
 import at.htlleonding.dtos.ResetPasswordDto;
+import at.htlleonding.dtos.TokenDto;
+import at.htlleonding.execution.RequestExecutor;
+import at.htlleonding.hashing.HashingExecutor;
+import at.htlleonding.hashing.HashingSaturatedException;
+import at.htlleonding.jwt.JWTFilter;
+import at.htlleonding.jwt.JWTRequired;
 import at.htlleonding.jwt.JWTService;
+import at.htlleonding.jwt.VerifiedToken;
+import at.htlleonding.metrics.LoginMetrics;
+import at.htlleonding.metrics.LoginMetrics.Outcome;
+import at.htlleonding.metrics.LoginMetrics.Stage;
+import at.htlleonding.ratelimit.LoginThrottle;
+import at.htlleonding.ratelimit.RateLimitedException;
+import at.htlleonding.token.RefreshTokenService;
+import at.htlleonding.token.TokenRevocationService;
+import io.vertx.core.http.HttpServerRequest;
 import jakarta.inject.Inject;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import lombok.extern.slf4j.Slf4j;
+import org.jboss.resteasy.spi.HttpRequest;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 @Consumes("application/json")
 @Path("/api/v1")
 @Produces("application/json")
 @Slf4j
 public class LoginResource {
+    static final String NDJSON = "application/x-ndjson";
+    static final int ACCESS_TOKEN_MINUTES = 30;
+
     private final LoginService loginService;
     
     @Inject
     JWTService jwtService;
+
+    @Inject
+    UserImportService userImportService;
+
+    @Inject
+    LoginThrottle loginThrottle;
+
+    @Inject
+    LoginMetrics metrics;
+
+    @Inject
+    RequestExecutor requestExecutor;
+
+    @Inject
+    RefreshTokenService refreshTokens;
+
+    @Inject
+    TokenRevocationService tokenRevocations;
     
     public LoginResource(@NotNull final LoginService loginService) {
-        log.info("start");
         this.loginService = loginService;
     }
 
     @POST
     @Path("/register")
-    public Response register(RegisterDto user) {
-        log.info("register + hash and salt pw");
-        try {
-            loginService.addUser(new User(user.getUsername(), user.getPassword(), user.getTelephoneNumber()));
-        } catch (IllegalArgumentException e) {
-            return Response.status(400, e.getMessage()).build();
+    @AdmissionControlled
+    public CompletionStage<Response> register(RegisterDto user) {
+        log.debug("register + hash and salt pw");
+        if (user == null) {
+            return CompletableFuture.completedFuture(Response.status(400).build());
+        }
+        User newUser = new User(user.getUsername(), user.getPassword(), user.getTelephoneNumber());
+        CompletionStage<Void> added = requestExecutor.isVirtual()
+                ? requestExecutor.run(() -> loginService.addUser(newUser))
+                : loginService.addUserAsync(newUser);
+        return added
+                .thenApply(ignored -> Response.status(201).build())
+                .exceptionally(e -> {
+                    RuntimeException cause = HashingExecutor.unwrap(e);
+                    if (cause instanceof IllegalArgumentException) {
+                        return Response.status(400, cause.getMessage()).build();
+                    }
+                    if (cause instanceof HashingSaturatedException saturated) {
+                        return serviceUnavailable(saturated);
+                    }
+                    throw cause;
+                });
+    }
+
+    /**
+     * Bulk registration from NDJSON, one {@link RegisterDto} per line. The response streams one NDJSON
+     * result per record while the import runs. Only the admins configured in {@code import.admins} may import.
+     * <p>
+     * Not admission controlled: the slot would be released as soon as the {@link StreamingOutput} is returned, before
+     * any hashing, and one slot says nothing about N hashes. The import bounds itself instead, with at most one hash
+     * per hashing thread in flight.
+     */
+    @POST
+    @Path("/register/bulk")
+    @JWTRequired
+    @Consumes(NDJSON)
+    @Produces(NDJSON)
+    public Response registerBulk(InputStream users, @Context HttpRequest request) {
+        log.debug("bulk register");
+        if (!userImportService.isAllowed((String) request.getAttribute(JWTFilter.USERNAME_PROPERTY))) {
+            return Response.status(Response.Status.FORBIDDEN).build();
         }
-        return Response.status(201).build();
+        StreamingOutput results = output -> userImportService.importUsers(users, output);
+        return Response.ok(results).build();
     }
 
     @POST
     @Path("/login")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response login(LoginDto user) {
-        log.info("login");
+    @AdmissionControlled
+    public CompletionStage<Response> login(LoginDto user, @Context HttpServerRequest request) {
+        log.debug("login");
+        long start = System.nanoTime();
+        if (user == null || user.getUsername() == null || user.getPassword() == null) {
+            return CompletableFuture.completedFuture(Response.status(400).build());
+        }
+        String clientIp = request.remoteAddress().host();
+        try {
+            loginThrottle.checkAllowed(user.getUsername(), clientIp);
+        } catch (RateLimitedException e) {
+            metrics.record(Stage.REQUEST, Outcome.THROTTLED, start);
+            return CompletableFuture.completedFuture(tooManyRequests(e));
+        }
+        CompletionStage<Boolean> checked = requestExecutor.isVirtual()
+                ? requestExecutor.supply(() -> loginService.checkPassword(user.getUsername(), user.getPassword()))
+                : loginService.checkPasswordAsync(user.getUsername(), user.getPassword());
+        // Issuing the tokens writes the refresh token, so it runs on the blocking executor and never on a hashing
+        // thread; a failure there is a server error, not a failed login
+        return checked
+                .thenApplyAsync(valid -> {
+                    if (!valid) {
+                        loginThrottle.recordFailure(user.getUsername(), clientIp);
+                        metrics.record(Stage.REQUEST, Outcome.BAD_PASSWORD, start);
+                        return Response.status(400).build();
+                    }
+                    loginThrottle.recordSuccess(user.getUsername(), clientIp);
+                    Response response;
+                    try {
+                        response = tokenResponse(user.getUsername(), refreshTokens.issue(user.getUsername()));
+                    } catch (RuntimeException e) {
+                        log.warn("Issuing tokens for {} failed", user.getUsername(), e);
+                        metrics.record(Stage.REQUEST, Outcome.ERROR, start);
+                        return Response.serverError().build();
+                    }
+                    metrics.record(Stage.REQUEST, Outcome.SUCCESS, start);
+                    return response;
+                }, requestExecutor.blockingExecutor())
+                .exceptionally(e -> {
+                    RuntimeException cause = HashingExecutor.unwrap(e);
+                    if (cause instanceof IllegalArgumentException) {
+                        loginThrottle.recordFailure(user.getUsername(), clientIp);
+                        metrics.record(Stage.REQUEST, Outcome.UNKNOWN_USER, start);
+                        return Response.status(400).build();
+                    }
+                    if (cause instanceof HashingSaturatedException saturated) {
+                        metrics.record(Stage.REQUEST, Outcome.SATURATED, start);
+                        return serviceUnavailable(saturated);
+                    }
+                    metrics.record(Stage.REQUEST, Outcome.ERROR, start);
+                    return Response.status(401).build();
+                });
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token of its family. Costs one HMAC and
+     * one indexed lookup instead of an Argon2 verification; an already exchanged token revokes the whole family.
+     */
+    @POST
+    @Path("/token/refresh")
+    @AdmissionControlled(prioritized = true)
+    public CompletionStage<Response> refresh(RefreshTokenDto refreshTokenDto) {
+        log.debug("refresh token");
+        long start = System.nanoTime();
+        if (refreshTokenDto == null) {
+            return CompletableFuture.completedFuture(Response.status(400).build());
+        }
+        return requestExecutor.supply(() -> refreshTokens.refresh(refreshTokenDto.getRefreshToken()))
+                .thenApply(rotation -> {
+                    if (rotation == null) {
+                        metrics.record(Stage.REFRESH, Outcome.INVALID_TOKEN, start);
+                        return Response.status(401).build();
+                    }
+                    Response response = tokenResponse(rotation.username(), rotation.refreshToken());
+                    metrics.record(Stage.REFRESH, Outcome.SUCCESS, start);
+                    return response;
+                })
+                .exceptionally(e -> {
+                    metrics.record(Stage.REFRESH, Outcome.ERROR, start);
+                    throw HashingExecutor.unwrap(e);
+                });
+    }
+
+    /**
+     * Logs a client out by revoking the refresh token family; answers 204 whether or not the token was known.
+     */
+    @POST
+    @Path("/token/revoke")
+    public CompletionStage<Response> revoke(RefreshTokenDto refreshTokenDto) {
+        log.debug("revoke refresh token");
+        if (refreshTokenDto == null) {
+            return CompletableFuture.completedFuture(Response.status(400).build());
+        }
+        return requestExecutor.supply(() -> refreshTokens.revoke(refreshTokenDto.getRefreshToken()))
+                .thenApply(revoked -> Response.noContent().build());
+    }
+
+    /**
+     * Revokes the presented access token and the refresh token family sent along with it.
+     */
+    @POST
+    @Path("/logout")
+    @JWTRequired
+    @AdmissionControlled(prioritized = true)
+    public CompletionStage<Response> logout(RefreshTokenDto refreshTokenDto, @Context HttpRequest request) {
+        log.debug("logout");
+        VerifiedToken token = (VerifiedToken) request.getAttribute(JWTFilter.TOKEN_PROPERTY);
+        return requestExecutor.run(() -> {
+                    tokenRevocations.revoke(token);
+                    if (refreshTokenDto != null) {
+                        refreshTokens.revoke(refreshTokenDto.getRefreshToken());
+                    }
+                })
+                .thenApply(ignored -> Response.noContent().build())
+                .exceptionally(e -> {
+                    RuntimeException cause = HashingExecutor.unwrap(e);
+                    if (cause instanceof IllegalArgumentException) {
+                        return Response.status(400, cause.getMessage()).build();
+                    }
+                    throw cause;
+                });
+    }
+
+    private Response tokenResponse(String username, String refreshToken) {
+        String token = signToken(username);
+        return Response.ok(new TokenDto(token, refreshToken, ACCESS_TOKEN_MINUTES * 60L))
+                .header("Authorization", "Bearer " + token)
+                .build();
+    }
+
+    private String signToken(String username) {
+        long start = System.nanoTime();
         try {
-            if (loginService.checkPassword(user.getUsername(), user.getPassword())) {
-                String token = jwtService.generateToken(user.getUsername(), 30);
-                return Response.ok().header("Authorization", "Bearer " + token).build();
-            } else {
-                return Response.status(400).build();
-            }
-        } catch (IllegalArgumentException e) {
-            return Response.status(400).build();
-        } catch (Exception e) {
-            return Response.status(401).build();
+            String token = jwtService.generateToken(username, ACCESS_TOKEN_MINUTES);
+            metrics.record(Stage.SIGN, Outcome.SUCCESS, start);
+            return token;
+        } catch (RuntimeException e) {
+            metrics.record(Stage.SIGN, Outcome.ERROR, start);
+            throw e;
         }
     }
 
     @GET
     @Path("/resetpw/{username}")
-    public Response resetPassword(@PathParam("username") String username) {
-        log.info("reset password");
-        String code = loginService.resetPassword(username);
-        return Response.ok(code).build();
+    public CompletionStage<Response> resetPassword(@PathParam("username") String username) {
+        log.debug("reset password");
+        return requestExecutor.supply(() -> loginService.resetPassword(username))
+                .thenApply(code -> Response.ok(code).build());
     }
 
     @POST
     @Path("/resetpw/code/")
-    public Response resetPasswordWithCode(ResetPasswordDto resetPasswordDto) {
-        log.info("reset password with code");
-        try {
-            boolean success = loginService.resetPasswordWithCode(resetPasswordDto.getUsername(), resetPasswordDto.getResetCode(), resetPasswordDto.getNewPassword());
-            if (!success) {
-                return Response.status(400).build();
-            }
-        } catch (IllegalArgumentException e) {
-            return Response.status(400).build();
+    public CompletionStage<Response> resetPasswordWithCode(ResetPasswordDto resetPasswordDto) {
+        log.debug("reset password with code");
+        if (resetPasswordDto == null) {
+            return CompletableFuture.completedFuture(Response.status(400).build());
         }
-        return Response.status(200).build();
+        return requestExecutor.supply(() -> loginService.resetPasswordWithCode(resetPasswordDto.getUsername(), resetPasswordDto.getResetCode(), resetPasswordDto.getNewPassword()))
+                .thenApply(success -> Response.status(success ? 200 : 400).build())
+                .exceptionally(e -> {
+                    RuntimeException cause = HashingExecutor.unwrap(e);
+                    if (cause instanceof IllegalArgumentException) {
+                        return Response.status(400).build();
+                    }
+                    if (cause instanceof HashingSaturatedException saturated) {
+                        return serviceUnavailable(saturated);
+                    }
+                    throw cause;
+                });
+    }
+
+    private static Response tooManyRequests(RateLimitedException e) {
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header("Retry-After", e.getRetryAfterSeconds())
+                .build();
+    }
+
+    private static Response serviceUnavailable(HashingSaturatedException e) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", e.getRetryAfterSeconds())
+                .build();
     }
 }
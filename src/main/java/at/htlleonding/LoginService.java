@@ -1,17 +1,34 @@
 package at.htlleonding;
 
+import at.htlleonding.execution.RequestExecutor;
+import at.htlleonding.hashing.Argon2Policy;
+import at.htlleonding.hashing.HashingExecutor;
+import at.htlleonding.keys.KeyRing;
+import at.htlleonding.keys.Keys;
+import at.htlleonding.keys.PepperedHash;
+import at.htlleonding.metrics.LoginMetrics;
+import at.htlleonding.token.RefreshTokenService;
 import de.mkammerer.argon2.Argon2;
 import de.mkammerer.argon2.Argon2Factory;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
 import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
+/**
+ * Argon2 work never runs inside a transaction: lookups are non-transactional reads, and hashes are computed first
+ * and then written in a short transaction, so no database connection is held while hashing or verifying.
+ */
 @ApplicationScoped
 @Slf4j
-@Transactional
 public class LoginService {
     public static class Argon2Singleton {
         private static class Holder {
@@ -30,76 +47,257 @@ public class LoginService {
     LoginPanacheRepository loginRepo;
 
     @Inject
-    CredentialManager credentialManager;
+    KeyRing keyRing;
 
+    @Inject
+    HashingExecutor hashingExecutor;
+
+    @Inject
+    Argon2Policy argon2Policy;
+
+    @Inject
+    RequestExecutor requestExecutor;
+
+    @Inject
+    UserCredentialCache credentialCache;
+
+    @Inject
+    LoginMetrics metrics;
+
+    @Inject
+    ResetTokenService resetTokens;
+
+    @Inject
+    RefreshTokenService refreshTokens;
+
+    @ActivateRequestContext
     public User getUserById(UUID id) {
-        log.info("Getting user by id: {}", id);
+        log.debug("Getting user by id: {}", id);
         return loginRepo.findById(id);
     }
 
     public void addUser(User user) {
-        log.info("Adding user: {}", user.getUsername());
+        log.debug("Adding user: {}", user.getUsername());
+        validateNewUser(user);
+        user.setPassword(encryptPassword(user.getPassword()));
+        QuarkusTransaction.joiningExisting().run(() -> insertUser(user));
+    }
+
+    /**
+     * Like {@link #addUser(User)}, but the Argon2 hash runs on the hashing pool and the caller is not blocked.
+     * The insert continues on {@link RequestExecutor#blockingExecutor()}, never on a hashing thread.
+     */
+    public CompletionStage<Void> addUserAsync(User user) {
+        log.debug("Adding user: {}", user.getUsername());
+        try {
+            validateNewUser(user);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String password = user.getPassword();
+        return hashingExecutor.submit(() -> hash(password))
+                .thenAcceptAsync(hash -> {
+                    user.setPassword(hash);
+                    QuarkusTransaction.requiringNew().run(() -> insertUser(user));
+                }, requestExecutor.blockingExecutor());
+    }
+
+    /**
+     * Cheap checks before spending an Argon2 hash. The authoritative duplicate check is the unique
+     * constraint hit by {@link #insertUser(User)}; here only a user the cache already knows is rejected.
+     */
+    private void validateNewUser(User user) {
         checkArguments(user);
 
-        if (loginRepo.findByUsername(user.getUsername()) != null) {
+        if (credentialCache.isCachedAsExisting(user.getUsername())) {
             throw new IllegalArgumentException("Username already exists!");
         }
-        user.setPassword(encryptPassword(user.getPassword()));
-        loginRepo.addUser(user);
+    }
+
+    private void insertUser(User user) {
+        try {
+            loginRepo.addUser(user);
+        } catch (PersistenceException e) {
+            if (isDuplicateUsername(e)) {
+                throw new IllegalArgumentException("Username already exists!");
+            }
+            throw e;
+        }
+        credentialCache.invalidateAfterCommit(user.getUsername());
+    }
+
+    static boolean isDuplicateUsername(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String constraint = violation.getConstraintName();
+                return constraint != null && constraint.toLowerCase().contains(User.USERNAME_CONSTRAINT);
+            }
+        }
+        return false;
     }
 
     String encryptPassword(String password) {
-        password += credentialManager.getPepper();
+        return hashingExecutor.call(() -> hash(password));
+    }
+
+    /**
+     * Hashes with the active pepper and prefixes the result with its version (see {@link PepperedHash}).
+     */
+    private String hash(String password) {
+        long start = System.nanoTime();
+        Keys keys = keyRing.keys();
+        password += keys.activePepper();
         Argon2 argon2 = Argon2Singleton.getInstance();
-        return argon2.hash(2, 65536, 1, password.toCharArray()); // The generated hash includes the salt automatically
+        try {
+            String hash = argon2.hash(argon2Policy.getIterations(), argon2Policy.getMemoryKb(), argon2Policy.getParallelism(), password.toCharArray()); // The generated hash includes the salt automatically
+            metrics.record(LoginMetrics.Stage.HASH, LoginMetrics.Outcome.SUCCESS, start);
+            return PepperedHash.format(keys.activePepperVersion(), hash);
+        } catch (RuntimeException e) {
+            metrics.record(LoginMetrics.Stage.HASH, LoginMetrics.Outcome.ERROR, start);
+            throw e;
+        }
     }
 
+    private boolean verify(String storedHash, String password) {
+        long start = System.nanoTime();
+        Argon2 argon2 = Argon2Singleton.getInstance();
+        try {
+            int pepperVersion = PepperedHash.version(storedHash);
+            String pepper = keyRing.keys().pepper(pepperVersion);
+            if (pepper == null) {
+                throw new IllegalStateException("Pepper version " + pepperVersion + " is no longer in the key ring");
+            }
+            boolean valid = argon2.verify(PepperedHash.argon2(storedHash), (password + pepper).toCharArray());
+            metrics.record(LoginMetrics.Stage.VERIFY, valid ? LoginMetrics.Outcome.SUCCESS : LoginMetrics.Outcome.BAD_PASSWORD, start);
+            return valid;
+        } catch (RuntimeException e) {
+            metrics.record(LoginMetrics.Stage.VERIFY, LoginMetrics.Outcome.ERROR, start);
+            throw e;
+        }
+    }
+
+    /**
+     * Verifies the password and, when the stored hash was made with other Argon2 parameters than the current
+     * policy or with a retired pepper, replaces it with a fresh hash in the same transaction.
+     */
     public boolean checkPassword(String username, String password) {
-        log.info("Checking password for user: {}", username);
-        User user = loginRepo.findByUsername(username);
+        log.debug("Checking password for user: {}", username);
+        UserCredentials user = credentialCache.get(username);
         if (user == null) {
             throw new IllegalArgumentException();
         }
-        Argon2 argon2 = Argon2Singleton.getInstance();
-        password += credentialManager.getPepper();
-        return argon2.verify(user.getPassword(), password.toCharArray());
+        Verification verification = hashingExecutor.call(() -> verifyAndUpgrade(user, password));
+        storeUpgradedHash(user, verification);
+        return verification.valid();
+    }
+
+    /**
+     * Like {@link #checkPassword(String, String)}, but the Argon2 verification runs on the hashing pool.
+     * An unknown user completes the stage with an {@link IllegalArgumentException}. A rehash is stored from
+     * {@link RequestExecutor#blockingExecutor()}, never from a hashing thread.
+     */
+    public CompletionStage<Boolean> checkPasswordAsync(String username, String password) {
+        log.debug("Checking password for user: {}", username);
+        UserCredentials user;
+        try {
+            user = credentialCache.get(username);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (user == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException());
+        }
+        return hashingExecutor.submit(() -> verifyAndUpgrade(user, password))
+                .thenApplyAsync(verification -> {
+                    storeUpgradedHash(user, verification);
+                    return verification.valid();
+                }, requestExecutor.blockingExecutor());
+    }
+
+    private Verification verifyAndUpgrade(UserCredentials user, String password) {
+        if (!verify(user.passwordHash(), password)) {
+            return new Verification(false, null);
+        }
+        boolean outdated = PepperedHash.version(user.passwordHash()) != keyRing.keys().activePepperVersion()
+                || argon2Policy.needsRehash(PepperedHash.argon2(user.passwordHash()));
+        String upgradedHash = outdated ? hash(password) : null;
+        return new Verification(true, upgradedHash);
+    }
+
+    /**
+     * Persists a rehash produced by {@link #verifyAndUpgrade}, joining the caller's transaction if there is one.
+     * A failure only keeps the old hash, it never fails the login.
+     */
+    private void storeUpgradedHash(UserCredentials user, Verification verification) {
+        if (verification.upgradedHash() == null) {
+            return;
+        }
+        try {
+            QuarkusTransaction.joiningExisting().run(() -> {
+                loginRepo.updatePassword(user.id(), verification.upgradedHash());
+                credentialCache.invalidateAfterCommit(user.username());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Rehash of user {} failed, keeping the old hash", user.id(), e);
+        }
+    }
+
+    private record Verification(boolean valid, String upgradedHash) {
     }
 
+    /**
+     * Issues a stateless reset code (see {@link ResetTokenService}); nothing is written to the database.
+     */
     public String resetPassword(String username) {
-        log.info("Resetting password for user: {}", username);
-        User user = loginRepo.findByUsername(username);
+        log.debug("Resetting password for user: {}", username);
+        if (username == null || username.isEmpty()) {
+            throw new IllegalArgumentException("Username must not be empty");
+        }
+        UserCredentials user = credentialCache.get(username);
         if (user == null) {
             throw new IllegalArgumentException("User not found!");
         }
-        log.info("EMAIL SENDING TO: {}", user.getUsername());
-        user.setResetCode(UUID.randomUUID().toString());
-        log.info("Email: reset code: {}", user.getResetCode());
-        return user.getResetCode();
+        String resetCode = resetTokens.issue(user);
+        log.debug("Reset code issued for user {}, sending email", username);
+        return resetCode;
     }
 
+    /**
+     * Sets a new password if {@code code} is a valid reset code for the user's current password. The update only
+     * applies while the stored hash is unchanged, so a code cannot be used twice even by concurrent requests.
+     */
     public boolean resetPasswordWithCode(String username, String code, String password) {
-        log.info("Resetting password for user: {}", username);
-        User user = loginRepo.findByUsername(username);
+        log.debug("Resetting password for user: {}", username);
+        if (username == null || username.isEmpty()) {
+            throw new IllegalArgumentException("Username must not be empty");
+        }
+        UserCredentials user = credentialCache.get(username);
         if (user == null) {
             throw new IllegalArgumentException("User not found!");
         }
-        if (user.getResetCode() == null || user.getResetCode().isEmpty()) {
-            throw new IllegalArgumentException("No reset code found!");
-        }
-        if (!user.getResetCode().equals(code)) {
+        if (!resetTokens.isValid(user, code)) {
             return false;
         }
-        user.setPassword(encryptPassword(password));
-        return true;
+        String hash = encryptPassword(password);
+        return QuarkusTransaction.joiningExisting().call(() -> {
+            if (loginRepo.replacePassword(user.id(), user.passwordHash(), hash) == 0) {
+                return false;
+            }
+            refreshTokens.revokeAll(username);
+            credentialCache.invalidateAfterCommit(username);
+            return true;
+        });
     }
 
+    @Transactional
     public void updateUser(User user) {
-        log.info("Updating user: {}", user.getId());
+        log.debug("Updating user: {}", user.getId());
         checkArguments(user);
         loginRepo.updateUser(user);
+        credentialCache.invalidateAfterCommit(user.getUsername());
     }
 
-    private void checkArguments(User user) {
+    void checkArguments(User user) {
         if (user.getPassword() == null || user.getPassword().isEmpty()) {
             throw new IllegalArgumentException("Password must not be empty");
         }
@@ -113,20 +311,26 @@ public class LoginService {
         }
     }
 
+    @Transactional
     public void deleteUser(UUID id) {
-        log.info("Deleting user: {}", id);
+        log.debug("Deleting user: {}", id);
         User user = loginRepo.findById(id);
         if (user == null) {
             throw new IllegalArgumentException("User not found!");
         }
         loginRepo.deleteUser(user);
+        refreshTokens.revokeAll(user.getUsername());
+        credentialCache.invalidateAfterCommit(user.getUsername());
     }
 
+    @Transactional
     public void deleteUserByName(String username) {
-        log.info("Deleting user: {}", username);
+        log.debug("Deleting user: {}", username);
         if (username == null || username.isEmpty()) {
             throw new IllegalArgumentException("Username must not be empty");
         }
         loginRepo.deleteUserByName(username);
+        refreshTokens.revokeAll(username);
+        credentialCache.invalidateAfterCommit(username);
     }
 }
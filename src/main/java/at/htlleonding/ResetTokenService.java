@@ -0,0 +1,82 @@
+package at.htlleonding;
+
+import at.htlleonding.jwt.HmacSigner;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Stateless password reset codes: {@code base64url(exp || HMAC(secret, exp, username, password hash))}.
+ * Nothing is stored; a code is checked against the user's current credentials, so it expires on its own and stops
+ * working as soon as the password (and with it the hash) changes, which also makes it single-use.
+ */
+@ApplicationScoped
+public class ResetTokenService {
+    private static final byte[] PURPOSE = "password-reset-v1".getBytes(StandardCharsets.UTF_8);
+    private static final int TOKEN_LENGTH = Long.BYTES + HmacSigner.LENGTH;
+
+    @ConfigProperty(name = "reset.token.ttl", defaultValue = "PT15M")
+    Duration ttl;
+
+    @Inject
+    CredentialManager credentialManager;
+
+    private HmacSigner signer;
+
+    @PostConstruct
+    void init() {
+        signer = new HmacSigner(credentialManager.getSecret().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String issue(UserCredentials user) {
+        return issue(user, System.currentTimeMillis() / 1000 + ttl.toSeconds());
+    }
+
+    String issue(UserCredentials user, long expiresAt) {
+        ByteBuffer token = ByteBuffer.allocate(TOKEN_LENGTH)
+                .putLong(expiresAt)
+                .put(mac(user, expiresAt));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.array());
+    }
+
+    /**
+     * True if {@code code} was issued for this user's current password hash and has not expired.
+     */
+    public boolean isValid(UserCredentials user, String code) {
+        if (code == null) {
+            return false;
+        }
+        byte[] token;
+        try {
+            token = Base64.getUrlDecoder().decode(code);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (token.length != TOKEN_LENGTH) {
+            return false;
+        }
+        long expiresAt = ByteBuffer.wrap(token).getLong();
+        byte[] provided = Arrays.copyOfRange(token, Long.BYTES, TOKEN_LENGTH);
+        return MessageDigest.isEqual(mac(user, expiresAt), provided)
+                && System.currentTimeMillis() / 1000 < expiresAt;
+    }
+
+    private byte[] mac(UserCredentials user, long expiresAt) {
+        byte[] username = user.username().getBytes(StandardCharsets.UTF_8);
+        Mac mac = signer.mac();
+        mac.update(PURPOSE);
+        mac.update(ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(expiresAt).putInt(username.length).array());
+        mac.update(username);
+        mac.update(user.passwordHash().getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal();
+    }
+}
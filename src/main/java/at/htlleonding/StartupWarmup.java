@@ -0,0 +1,44 @@
+package at.htlleonding;
+
+import at.htlleonding.jwt.JWTService;
+import de.mkammerer.argon2.Argon2;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Moves the one-time costs of the first login to startup. It loads the native Argon2 library through JNA and runs one
+ * cheap hash and verification. It also signs and verifies a token, which loads the key ring, the active key and its
+ * JCA provider. A pod started for a traffic spike then serves its first login without those delays.
+ */
+@ApplicationScoped
+@Slf4j
+public class StartupWarmup {
+    private static final char[] WARMUP_PASSWORD = "warmup-password".toCharArray();
+
+    @ConfigProperty(name = "startup.warmup.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    JWTService jwtService;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Argon2 argon2 = LoginService.Argon2Singleton.getInstance();
+        // minimal cost parameters: the point is the library load and the native call path, not the hash
+        String hash = argon2.hash(1, 1024, 1, WARMUP_PASSWORD);
+        if (!argon2.verify(hash, WARMUP_PASSWORD)) {
+            throw new IllegalStateException("Argon2 self-test failed");
+        }
+        if (jwtService.verify(jwtService.generateToken("warmup", 1), 0) == null) {
+            throw new IllegalStateException("Token self-test failed");
+        }
+        log.info("Warmed up Argon2 and token signing in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
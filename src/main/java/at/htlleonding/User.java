@@ -13,8 +13,10 @@ import java.util.UUID;
 @NoArgsConstructor
 @EqualsAndHashCode
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"))
 public class User {
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -30,8 +32,6 @@ public class User {
     @NotNull
     private String password;
 
-    private String resetCode;
-
     public User(String username, String password, String telephoneNumber) {
         this.username = username;
         this.password = password;
@@ -0,0 +1,142 @@
+package at.htlleonding;
+
+import at.htlleonding.metrics.LoginMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of {@link UserCredentials} in front of {@link LoginPanacheRepository#findByUsername(String)}.
+ * Unknown usernames are cached as well (for a shorter time) so repeated logins for them do not reach the database.
+ * Writers must call {@link #invalidateAfterCommit(String)} for every username they change.
+ * <p>
+ * Invalidation is local to this node. After a password reset or a delete on another node, this node keeps
+ * accepting the old password (or the deleted user) until its entry expires after {@code users.cache.ttl}, and a user
+ * registered elsewhere stays unknown here for up to {@code users.cache.negative-ttl}. Both TTLs are therefore kept
+ * short: they only need to absorb bursts of logins for the same name, since every login costs an Argon2 verification
+ * that dwarfs the lookup anyway.
+ */
+@ApplicationScoped
+public class UserCredentialCache {
+
+    @ConfigProperty(name = "users.cache.max-size", defaultValue = "100000")
+    long maxSize;
+
+    @ConfigProperty(name = "users.cache.ttl", defaultValue = "PT15S")
+    Duration ttl;
+
+    @ConfigProperty(name = "users.cache.negative-ttl", defaultValue = "PT5S")
+    Duration negativeTtl;
+
+    @ConfigProperty(name = "users.cache.negative-enabled", defaultValue = "true")
+    boolean negativeEnabled;
+
+    @Inject
+    LoginPanacheRepository loginRepo;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    LoginMetrics metrics;
+
+    private Cache<String, Optional<UserCredentials>> cache;
+
+    @PostConstruct
+    void init() {
+        long positiveNanos = ttl.toNanos();
+        long negativeNanos = negativeEnabled ? negativeTtl.toNanos() : 0L;
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Optional<UserCredentials>>() {
+                    @Override
+                    public long expireAfterCreate(String username, Optional<UserCredentials> value, long currentTime) {
+                        return value.isPresent() ? positiveNanos : negativeNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String username, Optional<UserCredentials> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(username, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String username, Optional<UserCredentials> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+    }
+
+    /**
+     * Returns the credentials for {@code username}, loading them on a miss, or null if there is no such user.
+     */
+    public UserCredentials get(String username) {
+        return cache.get(username, this::load).orElse(null);
+    }
+
+    /**
+     * True only if the user is already cached as existing; never queries the database.
+     */
+    public boolean isCachedAsExisting(String username) {
+        Optional<UserCredentials> cached = cache.getIfPresent(username);
+        return cached != null && cached.isPresent();
+    }
+
+    private Optional<UserCredentials> load(String username) {
+        long start = System.nanoTime();
+        User user;
+        try {
+            user = loginRepo.findByUsername(username);
+        } catch (RuntimeException e) {
+            metrics.record(LoginMetrics.Stage.LOOKUP, LoginMetrics.Outcome.ERROR, start);
+            throw e;
+        }
+        if (user == null) {
+            metrics.record(LoginMetrics.Stage.LOOKUP, LoginMetrics.Outcome.UNKNOWN_USER, start);
+            return Optional.empty();
+        }
+        metrics.record(LoginMetrics.Stage.LOOKUP, LoginMetrics.Outcome.SUCCESS, start);
+        return Optional.of(UserCredentials.of(user));
+    }
+
+    /**
+     * Drops the entry now and, if a transaction is running, again once it completes, so that a concurrent
+     * reader cannot re-cache the pre-commit state.
+     */
+    public void invalidateAfterCommit(String username) {
+        cache.invalidate(username);
+        if (transactionRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
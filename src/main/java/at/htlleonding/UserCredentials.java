@@ -0,0 +1,12 @@
+package at.htlleonding;
+
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the fields needed to authenticate a user, safe to share between threads and cache.
+ */
+public record UserCredentials(UUID id, String username, String passwordHash) {
+    public static UserCredentials of(User user) {
+        return new UserCredentials(user.getId(), user.getUsername(), user.getPassword());
+    }
+}
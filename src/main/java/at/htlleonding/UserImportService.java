@@ -0,0 +1,230 @@
+package at.htlleonding;
+
+import at.htlleonding.dtos.ImportResultDto;
+import at.htlleonding.dtos.RegisterDto;
+import at.htlleonding.hashing.HashingExecutor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Streams an NDJSON file of {@link RegisterDto} records into the users table. Records are processed in chunks:
+ * validated with the same rules as registration, hashed in parallel on the hashing pool and inserted in one
+ * batched transaction per chunk. Every record gets one NDJSON result line; a bad record never aborts the import.
+ */
+@ApplicationScoped
+@Slf4j
+public class UserImportService {
+    static final String CREATED = "created";
+    static final String FAILED = "failed";
+    static final String MALFORMED = "Malformed record";
+
+    @ConfigProperty(name = "import.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "quarkus.hibernate-orm.jdbc.statement-batch-size", defaultValue = "50")
+    int flushSize;
+
+    @ConfigProperty(name = "import.admins")
+    Optional<Set<String>> admins;
+
+    @Inject
+    LoginService loginService;
+
+    @Inject
+    LoginPanacheRepository loginRepo;
+
+    @Inject
+    HashingExecutor hashingExecutor;
+
+    @Inject
+    UserCredentialCache credentialCache;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    Validator validator;
+
+    private ObjectReader dtoReader;
+    private ObjectWriter resultWriter;
+
+    @PostConstruct
+    void init() {
+        dtoReader = objectMapper.readerFor(RegisterDto.class);
+        resultWriter = objectMapper.writerFor(ImportResultDto.class);
+    }
+
+    /**
+     * Only the users listed in {@code import.admins} may run an import; with none configured imports are disabled.
+     */
+    public boolean isAllowed(String username) {
+        return username != null && admins.map(names -> names.contains(username)).orElse(false);
+    }
+
+    public void importUsers(InputStream input, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        List<Pending> chunk = new ArrayList<>(batchSize);
+        int created = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String username = null;
+            try {
+                RegisterDto dto = dtoReader.readValue(line);
+                if (dto == null) {
+                    write(writer, new ImportResultDto(lineNumber, null, FAILED, MALFORMED));
+                } else {
+                    username = dto.getUsername();
+                    User user = new User(dto.getUsername(), dto.getPassword(), dto.getTelephoneNumber());
+                    loginService.checkArguments(user);
+                    Set<ConstraintViolation<User>> violations = validator.validate(user);
+                    if (!violations.isEmpty()) {
+                        throw new IllegalArgumentException(violations.iterator().next().getMessage());
+                    }
+                    chunk.add(new Pending(lineNumber, user));
+                }
+            } catch (JsonProcessingException e) {
+                write(writer, new ImportResultDto(lineNumber, null, FAILED, MALFORMED));
+            } catch (IllegalArgumentException e) {
+                write(writer, new ImportResultDto(lineNumber, username, FAILED, e.getMessage()));
+            }
+            if (chunk.size() == batchSize) {
+                created += processChunk(chunk, writer);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created += processChunk(chunk, writer);
+        }
+        writer.flush();
+        log.info("Imported {} users from {} lines", created, lineNumber);
+    }
+
+    private int processChunk(List<Pending> chunk, Writer writer) throws IOException {
+        List<Pending> accepted = rejectDuplicates(chunk, writer);
+
+        List<Supplier<String>> hashes = new ArrayList<>(accepted.size());
+        for (Pending pending : accepted) {
+            String password = pending.user.getPassword();
+            hashes.add(() -> loginService.encryptPassword(password));
+        }
+        List<CompletableFuture<String>> futures = hashingExecutor.submitAll(hashes);
+        List<Pending> hashed = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Pending pending = accepted.get(i);
+            try {
+                pending.user.setPassword(futures.get(i).join());
+                hashed.add(pending);
+            } catch (RuntimeException e) {
+                log.warn("Hashing failed for import line {}", pending.line, e);
+                write(writer, new ImportResultDto(pending.line, pending.user.getUsername(), FAILED, "Password hashing failed"));
+            }
+        }
+
+        int created = insert(hashed, writer);
+        writer.flush();
+        return created;
+    }
+
+    /**
+     * Rejects records whose username repeats within the chunk or already exists, using one query per chunk.
+     */
+    private List<Pending> rejectDuplicates(List<Pending> chunk, Writer writer) throws IOException {
+        Set<String> usernames = new HashSet<>();
+        for (Pending pending : chunk) {
+            usernames.add(pending.user.getUsername());
+        }
+        Set<String> existing = new HashSet<>(loginRepo.findExistingUsernames(usernames));
+        Set<String> seen = new HashSet<>();
+        List<Pending> accepted = new ArrayList<>(chunk.size());
+        for (Pending pending : chunk) {
+            String username = pending.user.getUsername();
+            if (existing.contains(username) || !seen.add(username)) {
+                write(writer, new ImportResultDto(pending.line, username, FAILED, "Username already exists!"));
+            } else {
+                accepted.add(pending);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Inserts the chunk in one transaction. If that fails (e.g. a concurrent registration took a username),
+     * falls back to one transaction per record so only the offending records are reported.
+     */
+    private int insert(List<Pending> hashed, Writer writer) throws IOException {
+        if (hashed.isEmpty()) {
+            return 0;
+        }
+        List<User> users = new ArrayList<>(hashed.size());
+        for (Pending pending : hashed) {
+            users.add(pending.user);
+        }
+        try {
+            QuarkusTransaction.requiringNew().run(() -> loginRepo.addUsers(users, flushSize));
+            for (Pending pending : hashed) {
+                credentialCache.invalidateAfterCommit(pending.user.getUsername());
+                write(writer, new ImportResultDto(pending.line, pending.user.getUsername(), CREATED, null));
+            }
+            return hashed.size();
+        } catch (RuntimeException e) {
+            log.debug("Batch insert failed, retrying records one by one", e);
+        }
+
+        int created = 0;
+        for (Pending pending : hashed) {
+            User user = pending.user;
+            user.setId(null);
+            try {
+                QuarkusTransaction.requiringNew().run(() -> loginRepo.addUsers(List.of(user), flushSize));
+                credentialCache.invalidateAfterCommit(user.getUsername());
+                write(writer, new ImportResultDto(pending.line, user.getUsername(), CREATED, null));
+                created++;
+            } catch (RuntimeException e) {
+                String message = LoginService.isDuplicateUsername(e) ? "Username already exists!" : "Insert failed";
+                write(writer, new ImportResultDto(pending.line, user.getUsername(), FAILED, message));
+            }
+        }
+        return created;
+    }
+
+    private void write(Writer writer, ImportResultDto result) throws IOException {
+        writer.write(resultWriter.writeValueAsString(result));
+        writer.write('\n');
+    }
+
+    private record Pending(int line, User user) {
+    }
+}
@@ -0,0 +1,115 @@
+package at.htlleonding.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows latency, after the gradient algorithm of Netflix' concurrency-limits. The ratio of
+ * the unloaded (minimum) to the recent average round trip time shrinks the limit as soon as requests start to queue
+ * (latency rises while throughput cannot), and an allowance of {@code sqrt(limit)} lets it grow again while latency
+ * stays flat. With the allowance the limit settles where requests wait about one service time, so the pool stays
+ * busy without a standing queue. A dropped request, one that the hashing pool had to shed, also cuts the limit by a
+ * fixed factor, as in AIMD.
+ * <p>
+ * Admission is one CAS on the in-flight count. Regular requests may only fill the limit up to the reserve, so
+ * prioritised requests still get in when regular ones have used up their share.
+ */
+public final class AdaptiveConcurrencyLimit {
+    private static final double SHORT_WINDOW = 10;
+    /** Latency may rise by this factor before the limit shrinks. */
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double reservedFraction;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // guarded by this
+    private double baselineRtt;
+    private double shortRtt;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double reservedFraction) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (reservedFraction < 0 || reservedFraction >= 1) {
+            throw new IllegalArgumentException("Reserved fraction must be in [0, 1)");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.reservedFraction = reservedFraction;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Takes a slot if one is free. Every successful call must be followed by exactly one of the release methods.
+     */
+    public boolean tryAcquire(boolean prioritized) {
+        double current = limit;
+        int cap = prioritized ? (int) current : Math.max(1, (int) (current * (1 - reservedFraction)));
+        while (true) {
+            int taken = inFlight.get();
+            if (taken >= cap) {
+                return false;
+            }
+            if (inFlight.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot and feeds the request's round trip time into the limit.
+     */
+    public void release(long rttNanos) {
+        int taken = inFlight.getAndDecrement();
+        update(rttNanos, taken);
+    }
+
+    /**
+     * Releases the slot of a request that was dropped because the service was overloaded.
+     */
+    public void releaseDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+        }
+    }
+
+    /**
+     * Releases a slot without a sample, for requests whose latency says nothing about the protected work.
+     */
+    public void releaseIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, int taken) {
+        if (baselineRtt == 0 || rttNanos < baselineRtt) {
+            baselineRtt = rttNanos;
+            shortRtt = rttNanos;
+        }
+        shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineRtt / shortRtt));
+        double current = limit;
+        if (gradient == 1.0 && taken < current / 2) {
+            // not limited by concurrency, the sample says nothing about a larger limit
+            return;
+        }
+        double next = current * gradient + Math.sqrt(current);
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + next * SMOOTHING));
+        if (gradient < 1.0 && limit == minLimit) {
+            // still slow at the smallest limit: the work itself got more expensive, so this is the new baseline
+            baselineRtt = shortRtt;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package at.htlleonding.admission;
+
+import jakarta.ws.rs.NameBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts an endpoint behind the adaptive concurrency limit of {@link AdmissionFilter}.
+ */
+@NameBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdmissionControlled {
+    /**
+     * Prioritised requests may use the whole limit; the others are shed once only the reserve is left.
+     */
+    boolean prioritized() default false;
+}
@@ -0,0 +1,131 @@
+package at.htlleonding.admission;
+
+import at.htlleonding.hashing.HashingExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+/**
+ * Admission control for {@link AdmissionControlled} endpoints. When a login storm pushes latency up, the
+ * {@link AdaptiveConcurrencyLimit} shrinks and the excess is answered with 503 and {@code Retry-After} before the body
+ * is read and before authentication, so the requests that are admitted keep their latency instead of all of them
+ * queueing for the hashing pool.
+ * <p>
+ * Only regular requests that reached the resource feed the limit: 429s from the login throttle and prioritised
+ * requests (token refresh, authenticated calls) are cheap and would hide the Argon2 latency the limit protects, and a
+ * 503 from the hashing pool counts as a drop.
+ * <p>
+ * The slot is given back in the response filter. {@link UnhandledExceptionMapper} turns exceptions that no other
+ * mapper handles into a response, so those requests pass the response filter as well instead of leaking their slot.
+ */
+@Provider
+@AdmissionControlled
+@Priority(Priorities.AUTHENTICATION - 100)
+@Slf4j
+public class AdmissionFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String ADMISSION_PROPERTY = "admission.permit";
+
+    @ConfigProperty(name = "admission.enabled", defaultValue = "true")
+    boolean enabled;
+
+    /** Defaults to the hashing pool size, so that the first samples of a storm after startup are not queued. */
+    @ConfigProperty(name = "admission.initial-limit")
+    Optional<Integer> initialLimit;
+
+    @ConfigProperty(name = "admission.min-limit", defaultValue = "2")
+    int minLimit;
+
+    @ConfigProperty(name = "admission.max-limit", defaultValue = "200")
+    int maxLimit;
+
+    @ConfigProperty(name = "admission.reserved-fraction", defaultValue = "0.2")
+    double reservedFraction;
+
+    @ConfigProperty(name = "admission.retry-after-seconds", defaultValue = "1")
+    int retryAfterSeconds;
+
+    @Inject
+    HashingExecutor hashingExecutor;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    private AdaptiveConcurrencyLimit limit;
+    private Counter rejectedRegular;
+    private Counter rejectedPrioritized;
+
+    @PostConstruct
+    void init() {
+        int initial = Math.max(minLimit, initialLimit.orElseGet(hashingExecutor::getPoolSize));
+        limit = new AdaptiveConcurrencyLimit(initial, minLimit, maxLimit, reservedFraction);
+        Gauge.builder("login.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit).register(registry);
+        Gauge.builder("login.admission.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight).register(registry);
+        rejectedRegular = Counter.builder("login.admission.rejected").tag("priority", "regular").register(registry);
+        rejectedPrioritized = Counter.builder("login.admission.rejected").tag("priority", "prioritized").register(registry);
+        log.info("Admission control {} with an initial limit of {}", enabled ? "enabled" : "disabled", initial);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!enabled) {
+            return;
+        }
+        boolean prioritized = isPrioritized();
+        if (!limit.tryAcquire(prioritized)) {
+            (prioritized ? rejectedPrioritized : rejectedRegular).increment();
+            requestContext.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", retryAfterSeconds)
+                    .build());
+            return;
+        }
+        requestContext.setProperty(ADMISSION_PROPERTY, new Permit(System.nanoTime(), prioritized));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!(requestContext.getProperty(ADMISSION_PROPERTY) instanceof Permit permit)) {
+            return;
+        }
+        requestContext.removeProperty(ADMISSION_PROPERTY);
+        int status = responseContext.getStatus();
+        if (status == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()) {
+            limit.releaseDropped();
+        } else if (permit.prioritized() || status == Response.Status.TOO_MANY_REQUESTS.getStatusCode() || status >= 500) {
+            limit.releaseIgnored();
+        } else {
+            limit.release(System.nanoTime() - permit.start());
+        }
+    }
+
+    private boolean isPrioritized() {
+        Method method = resourceInfo.getResourceMethod();
+        AdmissionControlled admission = method.getAnnotation(AdmissionControlled.class);
+        if (admission == null) {
+            admission = resourceInfo.getResourceClass().getAnnotation(AdmissionControlled.class);
+        }
+        return admission != null && admission.prioritized();
+    }
+
+    private record Permit(long start, boolean prioritized) {
+    }
+}
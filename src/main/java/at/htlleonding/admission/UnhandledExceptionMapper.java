@@ -0,0 +1,32 @@
+package at.htlleonding.admission;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import lombok.extern.slf4j.Slf4j;
+import org.jboss.resteasy.spi.Failure;
+
+/**
+ * Answers exceptions that no other mapper handles with a 500. RESTEasy classic writes an unmapped exception straight
+ * to the response without running the response filters, so the {@link AdmissionFilter} would never give back the slot
+ * of such a request; a mapped response goes through the filter chain like any other. More specific mappers (bean
+ * validation, JSON parsing) still take precedence, and {@link WebApplicationException}s and RESTEasy's own failures
+ * (an unreadable body is a 400) keep their response.
+ */
+@Provider
+@Slf4j
+public class UnhandledExceptionMapper implements ExceptionMapper<Exception> {
+
+    @Override
+    public Response toResponse(Exception exception) {
+        if (exception instanceof WebApplicationException webApplicationException) {
+            return webApplicationException.getResponse();
+        }
+        if (exception instanceof Failure failure) {
+            return failure.getResponse() != null ? failure.getResponse() : Response.status(failure.getErrorCode()).build();
+        }
+        log.error("Unhandled exception", exception);
+        return Response.serverError().build();
+    }
+}
@@ -0,0 +1,17 @@
+package at.htlleonding.dtos;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@RegisterForReflection
+public class ImportResultDto {
+    private int line;
+    private String username;
+    private String status;
+    private String message;
+}
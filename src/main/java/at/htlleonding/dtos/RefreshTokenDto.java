@@ -0,0 +1,16 @@
+package at.htlleonding.dtos;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class RefreshTokenDto {
+    private String refreshToken;
+}
@@ -1,5 +1,6 @@
 package at.htlleonding.dtos;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,6 +8,7 @@ import lombok.Setter;
 @Getter
 @Setter
 @AllArgsConstructor
+@RegisterForReflection
 public class ResetPasswordDto {
     private String username;
     private String resetCode;
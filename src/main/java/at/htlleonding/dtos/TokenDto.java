@@ -0,0 +1,19 @@
+package at.htlleonding.dtos;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@RegisterForReflection
+public class TokenDto {
+    private String accessToken;
+    private String refreshToken;
+    /** Lifetime of the access token in seconds. */
+    private long expiresIn;
+}
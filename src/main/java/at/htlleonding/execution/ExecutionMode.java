@@ -0,0 +1,11 @@
+package at.htlleonding.execution;
+
+/**
+ * Where {@code LoginResource} runs its blocking work (JDBC, waiting for Argon2).
+ */
+public enum ExecutionMode {
+    /** On the HTTP worker pool, handing Argon2 to the hashing pool asynchronously. */
+    WORKER,
+    /** On a new virtual thread per request; blocking calls park the virtual thread instead of a pool thread. */
+    VIRTUAL
+}
@@ -0,0 +1,90 @@
+package at.htlleonding.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In virtual mode, streams the JFR {@code jdk.VirtualThreadPinned} event: a virtual thread that blocked while
+ * pinned to its carrier, e.g. inside a {@code synchronized} block or a native call such as argon2-jvm's JNA binding.
+ * Each event is counted ({@code login.virtual.pinned}) and logged with the frames that caused it.
+ */
+@ApplicationScoped
+@Slf4j
+public class PinnedThreadMonitor {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    @ConfigProperty(name = "login.virtual-threads.pinned-threshold", defaultValue = "PT0.02S")
+    Duration threshold;
+
+    @Inject
+    RequestExecutor requestExecutor;
+
+    @Inject
+    MeterRegistry registry;
+
+    private RecordingStream stream;
+    private Counter pinned;
+    private Timer pinnedDuration;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!requestExecutor.isVirtual()) {
+            return;
+        }
+        pinned = Counter.builder("login.virtual.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(registry);
+        pinnedDuration = Timer.builder("login.virtual.pinned.duration")
+                .description("Time virtual threads stayed pinned while blocked")
+                .register(registry);
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+        log.info("Reporting virtual thread pinning longer than {}", threshold);
+    }
+
+    private void report(RecordedEvent event) {
+        pinned.increment();
+        pinnedDuration.record(event.getDuration());
+        if (log.isWarnEnabled()) {
+            log.warn("Virtual thread {} pinned for {} ms at {}", event.getThread() == null ? "?" : event.getThread().getJavaName(),
+                    event.getDuration().toMillis(), frames(event));
+        }
+    }
+
+    private static String frames(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(no stack trace)";
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        StringBuilder trace = new StringBuilder();
+        for (int i = 0; i < Math.min(LOGGED_FRAMES, frames.size()); i++) {
+            RecordedFrame frame = frames.get(i);
+            trace.append("\n\tat ").append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+        }
+        return trace.toString();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
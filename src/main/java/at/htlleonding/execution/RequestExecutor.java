@@ -0,0 +1,92 @@
+package at.htlleonding.execution;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking part of a request according to {@code login.execution-mode}. In {@link ExecutionMode#VIRTUAL}
+ * mode each task gets its own virtual thread and the HTTP worker is released as soon as the request is suspended;
+ * Argon2 still runs on the bounded hashing pool, which the virtual thread waits on without pinning its carrier.
+ * In {@link ExecutionMode#WORKER} mode tasks run inline on the calling thread.
+ * <p>
+ * A virtual thread per task never reuses thread-local state, so the per-thread Mac, scratch buffers and token builder
+ * of the token signers are created anew for every task that runs on one. Token issuing after a login therefore goes
+ * to the pooled {@link #blockingExecutor()} in both modes; refresh and revoke still sign on their virtual thread in
+ * virtual mode and pay that setup on each request.
+ */
+@ApplicationScoped
+@Slf4j
+public class RequestExecutor {
+
+    @Getter
+    @ConfigProperty(name = "login.execution-mode", defaultValue = "worker")
+    ExecutionMode mode;
+
+    @Inject
+    ManagedExecutor managedExecutor;
+
+    private ExecutorService virtualThreads;
+
+    @PostConstruct
+    void init() {
+        if (isVirtual()) {
+            virtualThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("login-vt-", 0).factory());
+        }
+        log.info("Login requests run in {} mode", mode);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+        }
+    }
+
+    public boolean isVirtual() {
+        return mode == ExecutionMode.VIRTUAL;
+    }
+
+    /**
+     * Executor for blocking continuations of work that completes on another pool, such as the database write after
+     * an Argon2 hash, so that the hashing threads only ever run Argon2. This is the bounded Quarkus worker pool in
+     * both modes: in virtual mode the continuation holds a platform thread for one short write, but keeps the
+     * thread-local signing state warm, which a fresh virtual thread per continuation would throw away.
+     */
+    public Executor blockingExecutor() {
+        return managedExecutor;
+    }
+
+    /**
+     * Runs {@code task} on a virtual thread in virtual mode, inline otherwise. Exceptions complete the stage.
+     */
+    public <T> CompletionStage<T> supply(Supplier<T> task) {
+        if (isVirtual()) {
+            return CompletableFuture.supplyAsync(task, virtualThreads);
+        }
+        try {
+            return CompletableFuture.completedFuture(task.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletionStage<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+}
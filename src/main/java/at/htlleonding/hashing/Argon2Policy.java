@@ -0,0 +1,135 @@
+package at.htlleonding.hashing;
+
+import at.htlleonding.LoginService;
+import de.mkammerer.argon2.Argon2;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Arrays;
+
+/**
+ * Argon2 cost parameters used for new hashes. The values come from configuration and can optionally be
+ * calibrated at startup so that a verification on this host stays below a target p99 latency; calibration only
+ * ever raises the configured iteration count. Stored hashes with a lower cost are reported by
+ * {@link #needsRehash(String)}.
+ */
+@ApplicationScoped
+@Getter
+@Slf4j
+public class Argon2Policy {
+    private static final char[] CALIBRATION_PASSWORD = "calibration-password".toCharArray();
+
+    @ConfigProperty(name = "argon2.iterations", defaultValue = "2")
+    int iterations;
+
+    @ConfigProperty(name = "argon2.memory-kb", defaultValue = "65536")
+    int memoryKb;
+
+    @ConfigProperty(name = "argon2.parallelism", defaultValue = "1")
+    int parallelism;
+
+    @ConfigProperty(name = "argon2.calibration.enabled", defaultValue = "false")
+    boolean calibrationEnabled;
+
+    @ConfigProperty(name = "argon2.calibration.target-p99-ms", defaultValue = "250")
+    long targetP99Ms;
+
+    @ConfigProperty(name = "argon2.calibration.samples", defaultValue = "20")
+    int samples;
+
+    @ConfigProperty(name = "argon2.calibration.max-iterations", defaultValue = "10")
+    int maxIterations;
+
+    void onStart(@Observes StartupEvent event) {
+        log.info("Argon2 policy: t={}, m={}, p={}", iterations, memoryKb, parallelism);
+    }
+
+    @PostConstruct
+    void init() {
+        if (calibrationEnabled) {
+            iterations = calibrateIterations();
+        }
+    }
+
+    /**
+     * True if {@code hash} was made with fewer iterations or less memory than this policy. A stronger hash is kept,
+     * so nodes that calibrated to different iteration counts never rehash each other's hashes back and forth.
+     * A hash whose parameters cannot be read is rehashed.
+     */
+    public boolean needsRehash(String hash) {
+        int[] cost = parseCost(hash);
+        return cost == null || cost[0] < memoryKb || cost[1] < iterations;
+    }
+
+    /**
+     * Reads {@code m} and {@code t} from an encoded hash such as {@code $argon2i$v=19$m=65536,t=2,p=1$salt$hash}.
+     */
+    static int[] parseCost(String hash) {
+        int start = hash.indexOf("$m=");
+        if (start < 0) {
+            return null;
+        }
+        int end = hash.indexOf('$', start + 1);
+        if (end < 0) {
+            return null;
+        }
+        int[] cost = new int[2];
+        for (String parameter : hash.substring(start + 1, end).split(",")) {
+            try {
+                if (parameter.startsWith("m=")) {
+                    cost[0] = Integer.parseInt(parameter.substring(2));
+                } else if (parameter.startsWith("t=")) {
+                    cost[1] = Integer.parseInt(parameter.substring(2));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return cost[0] > 0 && cost[1] > 0 ? cost : null;
+    }
+
+    /**
+     * Raises the iteration count from the configured value until the p99 verify latency exceeds the target and keeps
+     * the last value below it. The configured value is a floor: if it already misses the target it is kept, with a
+     * warning. Memory and parallelism stay as configured, since they are bounded by the hashing pool's memory budget.
+     */
+    int calibrateIterations() {
+        Argon2 argon2 = LoginService.Argon2Singleton.getInstance();
+        int best = iterations;
+        for (int t = iterations; t <= maxIterations; t++) {
+            String hash = argon2.hash(t, memoryKb, parallelism, CALIBRATION_PASSWORD);
+            long p99 = p99VerifyMillis(argon2, hash);
+            log.info("Argon2 calibration: t={} p99={}ms (target {}ms)", t, p99, targetP99Ms);
+            if (p99 > targetP99Ms) {
+                if (t == iterations) {
+                    log.warn("Argon2 calibration: the configured t={} already misses the target, keeping it", t);
+                }
+                break;
+            }
+            best = t;
+        }
+        log.info("Argon2 calibration picked t={} for m={}, p={}", best, memoryKb, parallelism);
+        return best;
+    }
+
+    /**
+     * The 99th percentile of {@code samples} verifications. With fewer than 100 samples (the default is 20) this is
+     * the slowest one.
+     */
+    private long p99VerifyMillis(Argon2 argon2, String hash) {
+        long[] timings = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            argon2.verify(hash, CALIBRATION_PASSWORD);
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        int index = Math.max(0, (int) Math.ceil(samples * 0.99) - 1);
+        return timings[index] / 1_000_000;
+    }
+}
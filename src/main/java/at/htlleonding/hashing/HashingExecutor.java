@@ -0,0 +1,188 @@
+package at.htlleonding.hashing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded pool for Argon2 work so that hashing never runs on (or starves) the HTTP worker threads.
+ * The pool is sized by the smaller of the core count and the memory budget divided by the Argon2 memory cost,
+ * and the queue in front of it is bounded; when both are full tasks fail fast with {@link HashingSaturatedException}.
+ */
+@ApplicationScoped
+@Slf4j
+public class HashingExecutor {
+    private static final long MIB = 1024L * 1024L;
+
+    @ConfigProperty(name = "hashing.pool-size")
+    Optional<Integer> poolSize;
+
+    @ConfigProperty(name = "hashing.queue-capacity", defaultValue = "64")
+    int queueCapacity;
+
+    @ConfigProperty(name = "hashing.memory-budget-mb", defaultValue = "512")
+    long memoryBudgetMb;
+
+    @ConfigProperty(name = "hashing.retry-after-seconds", defaultValue = "1")
+    int retryAfterSeconds;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Argon2Policy argon2Policy;
+
+    private ThreadPoolExecutor executor;
+    private Timer waitTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        int threads = poolSize.orElseGet(this::defaultPoolSize);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new WorkerFactory(), new ThreadPoolExecutor.AbortPolicy());
+        executor.prestartAllCoreThreads();
+
+        Gauge.builder("login.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Argon2 tasks waiting for a hashing thread")
+                .register(registry);
+        Gauge.builder("login.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Argon2 tasks currently running")
+                .register(registry);
+        waitTimer = Timer.builder("login.hashing.wait")
+                .description("Time an Argon2 task spent queued before it started")
+                .publishPercentileHistogram()
+                .register(registry);
+        rejected = Counter.builder("login.hashing.rejected")
+                .description("Argon2 tasks shed because the pool and queue were full")
+                .register(registry);
+        log.info("Hashing pool started with {} threads and a queue of {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    int defaultPoolSize() {
+        long bytesPerHash = argon2Policy.getMemoryKb() * 1024L;
+        long byMemory = memoryBudgetMb * MIB / bytesPerHash;
+        int byCpu = Runtime.getRuntime().availableProcessors();
+        return (int) Math.max(1, Math.min(byCpu, byMemory));
+    }
+
+    /**
+     * Queues a hashing task. The returned future fails with {@link HashingSaturatedException} if the task was shed.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueued = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTimer.record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(new HashingSaturatedException(retryAfterSeconds));
+        }
+        return result;
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for it. Calls made from a hashing thread run inline.
+     */
+    public <T> T call(Supplier<T> task) {
+        if (Thread.currentThread() instanceof Worker) {
+            return task.get();
+        }
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Runs a batch of hashing tasks across the pool for bulk work. At most one task per pool thread is in flight,
+     * and instead of being shed a task waits and is resubmitted while interactive traffic saturates the pool.
+     * The returned futures complete in task order and fail individually.
+     */
+    public <T> List<CompletableFuture<T>> submitAll(List<Supplier<T>> tasks) {
+        Semaphore inFlight = new Semaphore(executor.getCorePoolSize());
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        for (Supplier<T> task : tasks) {
+            inFlight.acquireUninterruptibly();
+            CompletableFuture<T> future = submitPatiently(task);
+            future.whenComplete((result, e) -> inFlight.release());
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    private <T> CompletableFuture<T> submitPatiently(Supplier<T> task) {
+        while (true) {
+            CompletableFuture<T> future = submit(task);
+            if (future.state() != Future.State.FAILED || !(future.exceptionNow() instanceof HashingSaturatedException)) {
+                return future;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+
+    public static RuntimeException unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(cause);
+    }
+
+    private static final class Worker extends Thread {
+        Worker(Runnable runnable, String name) {
+            super(runnable, name);
+            setDaemon(true);
+        }
+    }
+
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Worker(runnable, "argon2-hash-" + counter.incrementAndGet());
+        }
+    }
+}
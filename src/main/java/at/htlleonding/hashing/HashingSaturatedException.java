@@ -0,0 +1,16 @@
+package at.htlleonding.hashing;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the Argon2 worker pool and its queue are full and a hashing task has to be shed.
+ */
+@Getter
+public class HashingSaturatedException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public HashingSaturatedException(int retryAfterSeconds) {
+        super("Password hashing capacity exhausted");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
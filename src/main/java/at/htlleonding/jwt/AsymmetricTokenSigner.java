@@ -0,0 +1,214 @@
+package at.htlleonding.jwt;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * ES256 (ECDSA on P-256, signatures in the fixed-length JWS format) and EdDSA (Ed25519) signing. The key pair is
+ * parsed once; each thread keeps one {@link Signature} initialised for signing and one for verifying, since
+ * {@code Signature} objects reset themselves after every call and can be reused without another provider lookup or
+ * key initialisation.
+ * <p>
+ * Unless configured, the {@code kid} is the RFC 7638 thumbprint of the public key. A key pair without a private key
+ * gives a verify-only signer for retired keys.
+ */
+public final class AsymmetricTokenSigner implements TokenSigner {
+    public static final String ES256 = "ES256";
+    public static final String EDDSA = "EdDSA";
+
+    private final String algorithm;
+    private final String kid;
+    private final String header;
+    private final Map<String, String> jwk;
+    private final ThreadLocal<Signature> signers;
+    private final ThreadLocal<Signature> verifiers;
+
+    private AsymmetricTokenSigner(String algorithm, String jcaAlgorithm, KeyPair keys, Map<String, String> thumbprintMembers, String kid) {
+        this.algorithm = algorithm;
+        this.kid = kid != null ? kid : thumbprint(thumbprintMembers);
+        this.header = TokenSigner.encodeHeader(algorithm, this.kid);
+        Map<String, String> jwk = new TreeMap<>(thumbprintMembers);
+        jwk.put("alg", algorithm);
+        jwk.put("kid", this.kid);
+        jwk.put("use", "sig");
+        this.jwk = Collections.unmodifiableMap(jwk);
+        this.signers = keys.getPrivate() == null ? null : ThreadLocal.withInitial(signature(jcaAlgorithm, s -> s.initSign(keys.getPrivate())));
+        this.verifiers = ThreadLocal.withInitial(signature(jcaAlgorithm, s -> s.initVerify(keys.getPublic())));
+        if (signers != null) {
+            verifyKeyPair();
+        }
+    }
+
+    public static AsymmetricTokenSigner es256(KeyPair keys, String kid) {
+        ECPublicKey publicKey = (ECPublicKey) keys.getPublic();
+        Map<String, String> members = new TreeMap<>();
+        members.put("crv", "P-256");
+        members.put("kty", "EC");
+        members.put("x", base64Url(unsigned(publicKey.getW().getAffineX(), 32)));
+        members.put("y", base64Url(unsigned(publicKey.getW().getAffineY(), 32)));
+        return new AsymmetricTokenSigner(ES256, "SHA256withECDSAinP1363Format", keys, members, kid);
+    }
+
+    public static AsymmetricTokenSigner ed25519(KeyPair keys, String kid) {
+        byte[] encoded = keys.getPublic().getEncoded();
+        Map<String, String> members = new TreeMap<>();
+        members.put("crv", "Ed25519");
+        members.put("kty", "OKP");
+        // the X.509 SubjectPublicKeyInfo of an Ed25519 key ends with the 32-byte raw key
+        members.put("x", base64Url(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
+        return new AsymmetricTokenSigner(EDDSA, "Ed25519", keys, members, kid);
+    }
+
+    public static AsymmetricTokenSigner of(String algorithm, KeyPair keys, String kid) {
+        return switch (algorithm) {
+            case ES256 -> es256(keys, kid);
+            case EDDSA -> ed25519(keys, kid);
+            default -> throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        };
+    }
+
+    /**
+     * A fresh key pair for {@code algorithm}, for tests and single-node setups without configured keys.
+     */
+    public static KeyPair generateKeyPair(String algorithm) {
+        try {
+            if (ES256.equals(algorithm)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                return generator.generateKeyPair();
+            }
+            if (EDDSA.equals(algorithm)) {
+                return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate a " + algorithm + " key pair", e);
+        }
+        throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+    }
+
+    @Override
+    public String algorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public String kid() {
+        return kid;
+    }
+
+    @Override
+    public String encodedHeader() {
+        return header;
+    }
+
+    @Override
+    public int signatureLength() {
+        return 64;
+    }
+
+    @Override
+    public boolean canSign() {
+        return signers != null;
+    }
+
+    @Override
+    public void sign(byte[] data, int offset, int length, byte[] out) {
+        if (signers == null) {
+            throw new IllegalStateException("Key " + kid + " is retired and only verifies");
+        }
+        Signature signature = signers.get();
+        try {
+            signature.update(data, offset, length);
+            if (signature.sign(out, 0, out.length) != 64) {
+                throw new IllegalStateException("Unexpected " + algorithm + " signature length");
+            }
+        } catch (SignatureException e) {
+            signers.remove();
+            throw new IllegalStateException("Error while signing token", e);
+        }
+    }
+
+    @Override
+    public boolean verify(byte[] data, int offset, int length, byte[] signature) {
+        Signature verifier = verifiers.get();
+        try {
+            verifier.update(data, offset, length);
+            return verifier.verify(signature, 0, 64);
+        } catch (SignatureException e) {
+            verifiers.remove();
+            return false;
+        }
+    }
+
+    @Override
+    public Map<String, String> jwk() {
+        return jwk;
+    }
+
+    private void verifyKeyPair() {
+        byte[] probe = "key-pair-check".getBytes(StandardCharsets.US_ASCII);
+        byte[] signature = new byte[64];
+        sign(probe, 0, probe.length, signature);
+        if (!verify(probe, 0, probe.length, signature)) {
+            throw new IllegalArgumentException("Private and public " + algorithm + " key do not belong together");
+        }
+    }
+
+    private interface Initializer {
+        void init(Signature signature) throws GeneralSecurityException;
+    }
+
+    private static Supplier<Signature> signature(String jcaAlgorithm, Initializer initializer) {
+        return () -> {
+            try {
+                Signature signature = Signature.getInstance(jcaAlgorithm);
+                initializer.init(signature);
+                return signature;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(jcaAlgorithm + " not available", e);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Invalid " + jcaAlgorithm + " key", e);
+            }
+        };
+    }
+
+    private static String thumbprint(Map<String, String> members) {
+        StringBuilder json = new StringBuilder("{");
+        members.forEach((name, value) -> json.append(json.length() > 1 ? "," : "")
+                .append('"').append(name).append("\":\"").append(value).append('"'));
+        json.append('}');
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.toString().getBytes(StandardCharsets.UTF_8));
+            return base64Url(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        byte[] result = new byte[length];
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, result, length - copy, copy);
+        return result;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
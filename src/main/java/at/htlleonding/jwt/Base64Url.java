@@ -0,0 +1,110 @@
+package at.htlleonding.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Unpadded base64url decoding straight out of a {@link String} range into a caller-supplied buffer,
+ * so that token segments can be decoded without substrings or intermediate arrays, and encoding between
+ * byte buffers for the same reason when tokens are built.
+ */
+final class Base64Url {
+    private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    static int decodedLength(int encodedLength) {
+        return encodedLength * 3 / 4;
+    }
+
+    static int encodedLength(int length) {
+        return (length * 4 + 2) / 3;
+    }
+
+    /**
+     * Encodes {@code src[from, to)} into {@code dst} starting at {@code out}, which must have room for
+     * {@link #encodedLength(int)} bytes, and returns the index after the last byte written.
+     */
+    static int encode(byte[] src, int from, int to, byte[] dst, int out) {
+        int i = from;
+        int fullEnd = from + (to - from) / 3 * 3;
+        while (i < fullEnd) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[out++] = ALPHABET[bits >>> 18];
+            dst[out++] = ALPHABET[(bits >>> 12) & 0x3F];
+            dst[out++] = ALPHABET[(bits >>> 6) & 0x3F];
+            dst[out++] = ALPHABET[bits & 0x3F];
+            i += 3;
+        }
+        int remaining = to - i;
+        if (remaining == 1) {
+            int bits = src[i] & 0xFF;
+            dst[out++] = ALPHABET[bits >>> 2];
+            dst[out++] = ALPHABET[(bits << 4) & 0x3F];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xFF) << 8 | (src[i + 1] & 0xFF);
+            dst[out++] = ALPHABET[bits >>> 10];
+            dst[out++] = ALPHABET[(bits >>> 4) & 0x3F];
+            dst[out++] = ALPHABET[(bits << 2) & 0x3F];
+        }
+        return out;
+    }
+
+    /**
+     * Decodes {@code src[from, to)} into {@code dst} and returns the number of bytes written, or -1 if the
+     * range is not canonical unpadded base64url or does not fit.
+     */
+    static int decode(String src, int from, int to, byte[] dst) {
+        int length = to - from;
+        if (length % 4 == 1 || decodedLength(length) > dst.length) {
+            return -1;
+        }
+        int out = 0;
+        int i = from;
+        int fullEnd = from + (length & ~3);
+        while (i < fullEnd) {
+            int bits = (value(src.charAt(i)) << 18) | (value(src.charAt(i + 1)) << 12)
+                    | (value(src.charAt(i + 2)) << 6) | value(src.charAt(i + 3));
+            if (bits < 0) {
+                return -1;
+            }
+            dst[out++] = (byte) (bits >> 16);
+            dst[out++] = (byte) (bits >> 8);
+            dst[out++] = (byte) bits;
+            i += 4;
+        }
+        int remaining = to - i;
+        if (remaining == 2) {
+            int bits = (value(src.charAt(i)) << 6) | value(src.charAt(i + 1));
+            if (bits < 0 || (bits & 0xF) != 0) {
+                return -1;
+            }
+            dst[out++] = (byte) (bits >> 4);
+        } else if (remaining == 3) {
+            int bits = (value(src.charAt(i)) << 12) | (value(src.charAt(i + 1)) << 6) | value(src.charAt(i + 2));
+            if (bits < 0 || (bits & 0x3) != 0) {
+                return -1;
+            }
+            dst[out++] = (byte) (bits >> 10);
+            dst[out++] = (byte) (bits >> 2);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the 6-bit value of {@code c}, or -1; a -1 keeps the sign bit set in any group it is shifted into.
+     */
+    static int value(char c) {
+        return c < 128 ? VALUES[c] : -1;
+    }
+}
@@ -0,0 +1,222 @@
+package at.htlleonding.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming scanner for the flat JSON object in a token payload. It walks the top-level members once
+ * and records where the values of the claims we care about start and end, without building a tree.
+ * As with a regular JSON reader, the last occurrence of a duplicated member wins.
+ */
+final class ClaimsParser {
+    static final int EXP = 0;
+    static final int USERNAME = 1;
+    static final int JTI = 2;
+    static final int CLAIM_COUNT = 3;
+
+    private static final byte[][] KEYS = {
+            "exp".getBytes(StandardCharsets.US_ASCII),
+            "username".getBytes(StandardCharsets.US_ASCII),
+            "jti".getBytes(StandardCharsets.US_ASCII),
+    };
+
+    private ClaimsParser() {
+    }
+
+    /**
+     * Scans {@code json[0, length)} and fills {@code positions} with start/end pairs per claim
+     * (string values without their quotes), or -1 for absent claims.
+     *
+     * @return false if the payload is not a well-formed flat JSON object
+     */
+    static boolean parse(byte[] json, int length, int[] positions) {
+        Arrays.fill(positions, 0, CLAIM_COUNT * 2, -1);
+        int i = skipWhitespace(json, 0, length);
+        if (i >= length || json[i] != '{') {
+            return false;
+        }
+        i = skipWhitespace(json, i + 1, length);
+        if (i < length && json[i] == '}') {
+            return true;
+        }
+        while (i < length) {
+            if (json[i] != '"') {
+                return false;
+            }
+            int keyStart = i + 1;
+            int keyEnd = endOfString(json, keyStart, length);
+            if (keyEnd < 0) {
+                return false;
+            }
+            i = skipWhitespace(json, keyEnd + 1, length);
+            if (i >= length || json[i] != ':') {
+                return false;
+            }
+            i = skipWhitespace(json, i + 1, length);
+            if (i >= length) {
+                return false;
+            }
+            int valueStart;
+            int valueEnd;
+            byte first = json[i];
+            if (first == '"') {
+                valueStart = i + 1;
+                valueEnd = endOfString(json, valueStart, length);
+                if (valueEnd < 0) {
+                    return false;
+                }
+                i = valueEnd + 1;
+            } else if (first == '{' || first == '[') {
+                valueStart = i;
+                valueEnd = endOfNested(json, i, length);
+                if (valueEnd < 0) {
+                    return false;
+                }
+                i = valueEnd;
+            } else {
+                valueStart = i;
+                while (i < length && json[i] != ',' && json[i] != '}' && !isWhitespace(json[i])) {
+                    i++;
+                }
+                valueEnd = i;
+            }
+            int claim = claimIndex(json, keyStart, keyEnd);
+            if (claim >= 0) {
+                positions[claim * 2] = valueStart;
+                positions[claim * 2 + 1] = valueEnd;
+            }
+            i = skipWhitespace(json, i, length);
+            if (i >= length) {
+                return false;
+            }
+            if (json[i] == '}') {
+                return true;
+            }
+            if (json[i] != ',') {
+                return false;
+            }
+            i = skipWhitespace(json, i + 1, length);
+        }
+        return false;
+    }
+
+    /**
+     * Parses a non-negative JSON integer, returning -1 if the range is not one.
+     */
+    static long parseLong(byte[] json, int start, int end) {
+        if (start < 0 || start >= end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = json[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Decodes the raw contents of a JSON string (without quotes), resolving escape sequences.
+     */
+    static String parseString(byte[] json, int start, int end) {
+        int backslash = indexOf(json, start, end, (byte) '\\');
+        if (backslash < 0) {
+            return new String(json, start, end - start, StandardCharsets.UTF_8);
+        }
+        StringBuilder result = new StringBuilder(end - start);
+        int i = start;
+        while (i < end) {
+            if (backslash < 0) {
+                backslash = end;
+            }
+            result.append(new String(json, i, backslash - i, StandardCharsets.UTF_8));
+            if (backslash >= end - 1) {
+                break;
+            }
+            byte escaped = json[backslash + 1];
+            i = backslash + 2;
+            switch (escaped) {
+                case 'b' -> result.append('\b');
+                case 'f' -> result.append('\f');
+                case 'n' -> result.append('\n');
+                case 'r' -> result.append('\r');
+                case 't' -> result.append('\t');
+                case 'u' -> {
+                    if (i + 4 > end) {
+                        return null;
+                    }
+                    result.append((char) Integer.parseInt(new String(json, i, 4, StandardCharsets.US_ASCII), 16));
+                    i += 4;
+                }
+                default -> result.append((char) escaped);
+            }
+            backslash = indexOf(json, i, end, (byte) '\\');
+        }
+        return result.toString();
+    }
+
+    private static int claimIndex(byte[] json, int start, int end) {
+        for (int claim = 0; claim < KEYS.length; claim++) {
+            byte[] key = KEYS[claim];
+            if (key.length == end - start && Arrays.equals(json, start, end, key, 0, key.length)) {
+                return claim;
+            }
+        }
+        return -1;
+    }
+
+    private static int endOfString(byte[] json, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (json[i] == '\\') {
+                i++;
+            } else if (json[i] == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int endOfNested(byte[] json, int from, int length) {
+        int depth = 0;
+        for (int i = from; i < length; i++) {
+            byte b = json[i];
+            if (b == '"') {
+                i = endOfString(json, i + 1, length);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] json, int from, int end, byte value) {
+        for (int i = from; i < end; i++) {
+            if (json[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] json, int from, int length) {
+        int i = from;
+        while (i < length && isWhitespace(json[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
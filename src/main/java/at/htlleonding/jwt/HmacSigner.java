@@ -0,0 +1,59 @@
+package at.htlleonding.jwt;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * HMAC-SHA256 with one pre-keyed {@link Mac} per thread, so the hot path never takes a lock and never repeats the
+ * provider lookup or the key setup. The key is fixed; a new key means a new signer (see {@code KeyRing}).
+ */
+public final class HmacSigner {
+    public static final String ALGORITHM = "HmacSHA256";
+    public static final int LENGTH = 32;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public HmacSigner(byte[] key) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+    }
+
+    /**
+     * Returns this thread's Mac, keyed and reset.
+     */
+    public Mac mac() {
+        return macs.get();
+    }
+
+    public byte[] sign(byte[] data) {
+        return mac().doFinal(data);
+    }
+
+    /**
+     * Signs {@code data[offset, offset + length)} and writes the {@value #LENGTH}-byte MAC to {@code out[outOffset]}.
+     */
+    public void sign(byte[] data, int offset, int length, byte[] out, int outOffset) {
+        Mac mac = mac();
+        mac.update(data, offset, length);
+        try {
+            mac.doFinal(out, outOffset);
+        } catch (ShortBufferException e) {
+            throw new IllegalArgumentException("Output buffer too small for HMAC", e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException("Invalid HMAC key", e);
+        }
+    }
+}
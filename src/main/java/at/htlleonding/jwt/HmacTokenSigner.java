@@ -0,0 +1,74 @@
+package at.htlleonding.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * HS256 on top of {@link HmacSigner}. {@link #LEGACY_HEADER} is the kid-less header of tokens issued before key ids
+ * were introduced; the key ring routes it to the HS256 key named {@code hs256}.
+ */
+public final class HmacTokenSigner implements TokenSigner {
+    public static final String ALGORITHM = "HS256";
+    public static final String LEGACY_KID = "hs256";
+    public static final String LEGACY_HEADER = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.US_ASCII));
+
+    private static final ThreadLocal<byte[]> EXPECTED = ThreadLocal.withInitial(() -> new byte[HmacSigner.LENGTH]);
+    private static final ThreadLocal<byte[]> PROVIDED = ThreadLocal.withInitial(() -> new byte[HmacSigner.LENGTH]);
+
+    private final HmacSigner signer;
+    private final String kid;
+    private final String header;
+
+    public HmacTokenSigner(byte[] key, String kid) {
+        this.signer = new HmacSigner(key);
+        this.kid = kid;
+        this.header = TokenSigner.encodeHeader(ALGORITHM, kid);
+    }
+
+    @Override
+    public String algorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public String kid() {
+        return kid;
+    }
+
+    @Override
+    public String encodedHeader() {
+        return header;
+    }
+
+    @Override
+    public int signatureLength() {
+        return HmacSigner.LENGTH;
+    }
+
+    @Override
+    public void sign(byte[] data, int offset, int length, byte[] out) {
+        signer.sign(data, offset, length, out, 0);
+    }
+
+    /**
+     * Recomputes the MAC and compares it in constant time with {@link MessageDigest#isEqual}. The signature buffer is
+     * sized for the longest algorithm, so its first {@link HmacSigner#LENGTH} bytes are copied to an exactly sized
+     * per-thread buffer first; isEqual would reject arrays of different lengths.
+     */
+    @Override
+    public boolean verify(byte[] data, int offset, int length, byte[] signature) {
+        byte[] expected = EXPECTED.get();
+        byte[] provided = PROVIDED.get();
+        signer.sign(data, offset, length, expected, 0);
+        System.arraycopy(signature, 0, provided, 0, HmacSigner.LENGTH);
+        return MessageDigest.isEqual(expected, provided);
+    }
+
+    @Override
+    public Map<String, String> jwk() {
+        return null;
+    }
+}
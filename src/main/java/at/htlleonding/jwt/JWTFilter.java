@@ -1,5 +1,7 @@
 package at.htlleonding.jwt;
 
+import at.htlleonding.metrics.LoginMetrics;
+import at.htlleonding.token.TokenRevocationService;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
@@ -9,23 +11,51 @@ import jakarta.ws.rs.ext.Provider;
 @Provider
 @JWTRequired
 public class JWTFilter implements ContainerRequestFilter {
-    
+    public static final String USERNAME_PROPERTY = "jwt.username";
+    public static final String TOKEN_PROPERTY = "jwt.token";
+    private static final int TOKEN_OFFSET = "Bearer ".length();
+
+    @Inject
+    JWTService jwtService;
+
+    @Inject
+    VerifiedTokenCache tokenCache;
+
     @Inject
-    private JWTService jwtService;
+    LoginMetrics metrics;
+
+    @Inject
+    TokenRevocationService revocations;
 
     @Override
     public void filter(ContainerRequestContext requestContext)  {
+        long start = System.nanoTime();
         String authHeader = requestContext.getHeaderString("Authorization");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
+            metrics.record(LoginMetrics.Stage.FILTER, LoginMetrics.Outcome.MISSING_TOKEN, start);
             return;
         }
 
-        String token = authHeader.substring(7);
-
-        if (!jwtService.verifyToken(token)) {
+        long keyGeneration = jwtService.keyGeneration();
+        VerifiedToken token = tokenCache.get(authHeader, TOKEN_OFFSET, keyGeneration);
+        if (token == null) {
+            token = jwtService.verifySignature(authHeader, TOKEN_OFFSET);
+            if (token == null || token.isExpired(System.currentTimeMillis() / 1000)) {
+                requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
+                metrics.record(LoginMetrics.Stage.FILTER, token == null ? LoginMetrics.Outcome.INVALID_TOKEN : LoginMetrics.Outcome.EXPIRED_TOKEN, start);
+                return;
+            }
+            tokenCache.put(authHeader, TOKEN_OFFSET, token, keyGeneration);
+        }
+        if (revocations.isRevoked(token)) {
             requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
+            metrics.record(LoginMetrics.Stage.FILTER, LoginMetrics.Outcome.REVOKED_TOKEN, start);
+            return;
         }
+        requestContext.setProperty(USERNAME_PROPERTY, token.username());
+        requestContext.setProperty(TOKEN_PROPERTY, token);
+        metrics.record(LoginMetrics.Stage.FILTER, LoginMetrics.Outcome.SUCCESS, start);
     }
-}
\ No newline at end of file
+}
@@ -1,82 +1,160 @@
 package at.htlleonding.jwt;
 
-import at.htlleonding.CredentialManager;
+import at.htlleonding.keys.KeyRing;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.json.Json;
-import jakarta.json.JsonObject;
-import jakarta.json.JsonReader;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.io.StringReader;
-import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Issues tokens with the active key of the {@link KeyRing} and verifies them with whichever key of the ring the
+ * token header names, so retired keys keep verifying until their tokens have expired. Public halves of asymmetric
+ * keys are published by {@link JwksResource} so that other services can verify tokens without calling back.
+ */
 @ApplicationScoped
 public class JWTService {
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+    private static final ThreadLocal<TokenBuilder> BUILDER = ThreadLocal.withInitial(TokenBuilder::new);
 
     @Inject
-    private CredentialManager credentialManager;
-    
-    public String generateToken(String username, int minTimeLimit) {
-        String header = Base64.getUrlEncoder()
-                .withoutPadding()
-                .encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes());
-
-        long expirationTime = (System.currentTimeMillis() / 1000) + (minTimeLimit * 60L);
-
-        String payload = Base64.getUrlEncoder()
-                .withoutPadding()
-                .encodeToString(
-                        ("{\"username\":\"}" + username + "\",\"exp\":" + expirationTime + "}").getBytes()
-                );
+    KeyRing keyRing;
+
+    /**
+     * Changes whenever the key ring is reloaded; {@link VerifiedTokenCache} compares it on every hit, so tokens of
+     * a removed key stop verifying immediately.
+     */
+    public long keyGeneration() {
+        return keyRing.keys().generation();
+    }
 
-        try {
-            String signature = encryptHmac256(header + "." + payload);
+    /**
+     * Public JWKs of the verification keys; empty if all keys are HS256.
+     */
+    public List<Map<String, String>> publicKeys() {
+        return keyRing.keys().publicKeys();
+    }
 
-            return header + "." + payload + "." + signature;
-        } catch (Exception e) {
-            throw new RuntimeException("Error while creating token", e);
-        }
+    /**
+     * Signs a token for {@code username} that expires in {@code minTimeLimit} minutes; see {@link TokenBuilder}.
+     */
+    public String generateToken(String username, int minTimeLimit) {
+        long now = System.currentTimeMillis() / 1000;
+        return BUILDER.get().build(keyRing.keys().activeSigner(), username, now, now + minTimeLimit * 60L);
     }
 
     public boolean verifyToken(String token) {
-        String[] parts = token.split("\\.");
+        return verifyToken(token, 0);
+    }
 
-        if (parts.length != 3) {
+    /**
+     * Verifies the token that starts at {@code offset} in {@code source} (e.g. after the "Bearer " prefix of an
+     * Authorization header) without copying it: the dots are found by index scans, the HMAC is computed over
+     * the existing bytes and compared in constant time, and only {@code exp} is read from the payload.
+     */
+    public boolean verifyToken(String source, int offset) {
+        Scratch scratch = SCRATCH.get();
+        if (!checkSignatureAndParse(source, offset, scratch)) {
             return false;
         }
+        return isUnexpired(scratch);
+    }
 
-        String header = parts[0];
-        String payload = parts[1];
-        String signature = parts[2];
+    /**
+     * Like {@link #verifyToken(String)}, but also returns the claims of a valid token, or null if it is invalid.
+     */
+    public VerifiedToken verify(String source, int offset) {
+        VerifiedToken token = verifySignature(source, offset);
+        return token == null || token.isExpired(System.currentTimeMillis() / 1000) ? null : token;
+    }
 
-        try {
-            //check signature
-            String expectedSignature = encryptHmac256(header + "." + payload);
+    /**
+     * Like {@link #verify(String, int)}, but returns the claims of a correctly signed token even if it has expired,
+     * so that callers can tell an expired token from an invalid one. Null if the signature or claims are invalid.
+     */
+    public VerifiedToken verifySignature(String source, int offset) {
+        Scratch scratch = SCRATCH.get();
+        if (!checkSignatureAndParse(source, offset, scratch)) {
+            return null;
+        }
+        long exp = readExp(scratch);
+        int[] claims = scratch.claims;
+        int usernameStart = claims[ClaimsParser.USERNAME * 2];
+        if (exp < 0 || usernameStart < 0) {
+            return null;
+        }
+        String username = ClaimsParser.parseString(scratch.payload, usernameStart, claims[ClaimsParser.USERNAME * 2 + 1]);
+        int jtiStart = claims[ClaimsParser.JTI * 2];
+        String jti = jtiStart < 0 ? null : ClaimsParser.parseString(scratch.payload, jtiStart, claims[ClaimsParser.JTI * 2 + 1]);
+        return username == null ? null : new VerifiedToken(username, exp, jti);
+    }
 
-            if (!signature.equals(expectedSignature)) {
+    private boolean checkSignatureAndParse(String source, int offset, Scratch scratch) {
+        int length = source.length();
+        int firstDot = source.indexOf('.', offset);
+        if (firstDot <= offset) {
+            return false;
+        }
+        TokenSigner signer = keyRing.keys().signerFor(source, offset, firstDot);
+        if (signer == null) {
+            return false;
+        }
+        int secondDot = source.indexOf('.', firstDot + 1);
+        if (secondDot <= firstDot + 1 || source.indexOf('.', secondDot + 1) >= 0) {
+            return false;
+        }
+
+        //check signature
+        int signedLength = secondDot - offset;
+        byte[] signed = scratch.signedBuffer(signedLength);
+        for (int i = 0; i < signedLength; i++) {
+            char c = source.charAt(offset + i);
+            if (c > 0x7F) {
                 return false;
             }
+            signed[i] = (byte) c;
+        }
+        if (Base64Url.decode(source, secondDot + 1, length, scratch.provided) != signer.signatureLength()
+                || !signer.verify(signed, 0, signedLength, scratch.provided)) {
+            return false;
+        }
 
-            //check expiration date
-            String decodedPayload = new String(Base64.getUrlDecoder().decode(payload));
-            JsonReader jsonReader = Json.createReader(new StringReader(decodedPayload));
-            JsonObject payloadJson = jsonReader.readObject();
-            jsonReader.close();
+        //parse claims
+        byte[] payload = scratch.payloadBuffer(Base64Url.decodedLength(secondDot - firstDot - 1));
+        int payloadLength = Base64Url.decode(source, firstDot + 1, secondDot, payload);
+        return payloadLength >= 0 && ClaimsParser.parse(payload, payloadLength, scratch.claims);
+    }
 
-            long exp = payloadJson.getJsonNumber("exp").longValue();
-            return System.currentTimeMillis() / 1000 < exp;
+    private static boolean isUnexpired(Scratch scratch) {
+        long exp = readExp(scratch);
+        return exp >= 0 && System.currentTimeMillis() / 1000 < exp;
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Error verifying the token", e);
-        }
+    private static long readExp(Scratch scratch) {
+        return ClaimsParser.parseLong(scratch.payload, scratch.claims[ClaimsParser.EXP * 2], scratch.claims[ClaimsParser.EXP * 2 + 1]);
     }
 
-    private String encryptHmac256(String data) throws Exception {
-        Mac mac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secretKeySpec = new SecretKeySpec(credentialManager.getPepper().getBytes(), "HmacSHA256");
-        mac.init(secretKeySpec);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(data.getBytes()));
+    /**
+     * Per-thread buffers for token verification, grown on demand and reused across requests.
+     */
+    private static final class Scratch {
+        private final byte[] provided = new byte[TokenSigner.MAX_SIGNATURE_LENGTH];
+        private final int[] claims = new int[ClaimsParser.CLAIM_COUNT * 2];
+        private byte[] signed = new byte[512];
+        private byte[] payload = new byte[384];
+
+        byte[] signedBuffer(int length) {
+            if (signed.length < length) {
+                signed = new byte[Math.max(length, signed.length * 2)];
+            }
+            return signed;
+        }
+
+        byte[] payloadBuffer(int length) {
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            return payload;
+        }
     }
 }
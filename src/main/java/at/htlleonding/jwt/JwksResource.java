@@ -0,0 +1,91 @@
+package at.htlleonding.jwt;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the token verification keys as a JWK set. The document is rendered once per key set and served from
+ * memory with a strong ETag, so clients revalidating with {@code If-None-Match} get a bodyless 304.
+ */
+@Path("/.well-known/jwks.json")
+public class JwksResource {
+    @Inject
+    JWTService jwtService;
+
+    @ConfigProperty(name = "jwt.jwks.max-age", defaultValue = "PT5M")
+    Duration maxAge;
+
+    private volatile Document document;
+
+    private record Document(List<Map<String, String>> keys, byte[] body, EntityTag tag) {
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response jwks(@Context Request request) {
+        Document current = document();
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge((int) maxAge.toSeconds());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(current.tag());
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl).build();
+        }
+        return Response.ok(current.body())
+                .tag(current.tag())
+                .cacheControl(cacheControl)
+                .build();
+    }
+
+    /**
+     * Re-renders only when {@link JWTService#publicKeys()} returns a different key set.
+     */
+    private Document document() {
+        List<Map<String, String>> keys = jwtService.publicKeys();
+        Document current = document;
+        if (current == null || current.keys() != keys) {
+            current = render(keys);
+            document = current;
+        }
+        return current;
+    }
+
+    private static Document render(List<Map<String, String>> keys) {
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        for (int i = 0; i < keys.size(); i++) {
+            json.append(i == 0 ? "{" : ",{");
+            boolean first = true;
+            for (Map.Entry<String, String> member : keys.get(i).entrySet()) {
+                json.append(first ? "" : ",").append('"').append(member.getKey()).append("\":\"").append(member.getValue()).append('"');
+                first = false;
+            }
+            json.append('}');
+        }
+        json.append("]}");
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            String tag = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+            return new Document(keys, body, new EntityTag(tag));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
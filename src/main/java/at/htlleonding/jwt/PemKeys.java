@@ -0,0 +1,57 @@
+package at.htlleonding.jwt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Reads a key pair from a PKCS#8 {@code PRIVATE KEY} and an X.509 {@code PUBLIC KEY} PEM file, as written by
+ * {@code openssl genpkey} and {@code openssl pkey -pubout}.
+ */
+public final class PemKeys {
+    private PemKeys() {
+    }
+
+    /**
+     * @param keyAlgorithm the JCA key algorithm, {@code EC} or {@code Ed25519}
+     * @param privateKey   null to read only the public key
+     */
+    public static KeyPair read(String keyAlgorithm, Path privateKey, Path publicKey) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance(keyAlgorithm);
+            return new KeyPair(
+                    factory.generatePublic(new X509EncodedKeySpec(decode(publicKey, "PUBLIC KEY"))),
+                    privateKey == null ? null : factory.generatePrivate(new PKCS8EncodedKeySpec(decode(privateKey, "PRIVATE KEY"))));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid " + keyAlgorithm + " key in " + privateKey + " or " + publicKey, e);
+        }
+    }
+
+    public static String keyAlgorithm(String jwsAlgorithm) {
+        return AsymmetricTokenSigner.ES256.equals(jwsAlgorithm) ? "EC" : "Ed25519";
+    }
+
+    private static byte[] decode(Path file, String type) {
+        String pem;
+        try {
+            pem = Files.readString(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + file, e);
+        }
+        String begin = "-----BEGIN " + type + "-----";
+        String end = "-----END " + type + "-----";
+        int start = pem.indexOf(begin);
+        int stop = pem.indexOf(end);
+        if (start < 0 || stop < start) {
+            throw new IllegalArgumentException(file + " does not contain a " + type);
+        }
+        return Base64.getMimeDecoder().decode(pem.substring(start + begin.length(), stop));
+    }
+}
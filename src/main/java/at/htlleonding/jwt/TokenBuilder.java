@@ -0,0 +1,147 @@
+package at.htlleonding.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes a complete token into one reusable byte buffer: the signer's encoded header is copied from a cached ASCII
+ * copy, the claims are written as JSON into a second buffer and base64url encoded behind it, and the signature is
+ * computed over the buffer and appended. The returned String is the only allocation. Not thread safe; JWTService
+ * keeps one per thread.
+ */
+final class TokenBuilder {
+    private static final byte[] USERNAME = ascii("{\"username\":\"");
+    private static final byte[] EXP = ascii("\",\"exp\":");
+    private static final byte[] IAT = ascii(",\"iat\":");
+    private static final byte[] JTI = ascii(",\"jti\":\"");
+    private static final byte[] END = ascii("\"}");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    /** Everything but the username: the fixed parts, two longs and the 22-character jti. */
+    private static final int FIXED_CLAIMS_LENGTH = USERNAME.length + EXP.length + IAT.length + JTI.length + END.length + 2 * 19 + 22;
+
+    private final byte[] jti = new byte[16];
+    private final byte[] signature = new byte[TokenSigner.MAX_SIGNATURE_LENGTH];
+    private TokenSigner headerSigner;
+    private byte[] header;
+    private byte[] claims = new byte[256];
+    private byte[] token = new byte[512];
+
+    /**
+     * Builds a token with the claims {@code username}, {@code exp}, {@code iat} and a random {@code jti}
+     * (128 bits, base64url encoded; it only has to be unique, not secret, since it is covered by the signature).
+     */
+    String build(TokenSigner signer, String username, long issuedAt, long expiresAt) {
+        if (signer != headerSigner) {
+            header = signer.encodedHeader().getBytes(StandardCharsets.US_ASCII);
+            headerSigner = signer;
+        }
+        int claimsLength = writeClaims(username, issuedAt, expiresAt);
+
+        int signatureLength = signer.signatureLength();
+        int tokenLength = header.length + 1 + Base64Url.encodedLength(claimsLength) + 1 + Base64Url.encodedLength(signatureLength);
+        if (token.length < tokenLength) {
+            token = new byte[Math.max(tokenLength, token.length * 2)];
+        }
+        System.arraycopy(header, 0, token, 0, header.length);
+        int end = header.length;
+        token[end++] = '.';
+        end = Base64Url.encode(claims, 0, claimsLength, token, end);
+        signer.sign(token, 0, end, signature);
+        token[end++] = '.';
+        end = Base64Url.encode(signature, 0, signatureLength, token, end);
+        // the token is ASCII, and decoding ISO-8859-1 into a compact String is a plain copy
+        return new String(token, 0, end, StandardCharsets.ISO_8859_1);
+    }
+
+    private int writeClaims(String username, long issuedAt, long expiresAt) {
+        // at most six bytes per char, for control characters written as unicode escapes
+        int capacity = FIXED_CLAIMS_LENGTH + 6 * username.length();
+        if (claims.length < capacity) {
+            claims = new byte[Math.max(capacity, claims.length * 2)];
+        }
+        int out = put(USERNAME, 0);
+        out = putEscaped(username, out);
+        out = put(EXP, out);
+        out = putLong(expiresAt, out);
+        out = put(IAT, out);
+        out = putLong(issuedAt, out);
+        out = put(JTI, out);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = random.nextLong();
+        long low = random.nextLong();
+        for (int i = 0; i < 8; i++) {
+            jti[i] = (byte) (high >>> (56 - 8 * i));
+            jti[8 + i] = (byte) (low >>> (56 - 8 * i));
+        }
+        out = Base64Url.encode(jti, 0, jti.length, claims, out);
+        return put(END, out);
+    }
+
+    private int put(byte[] bytes, int out) {
+        System.arraycopy(bytes, 0, claims, out, bytes.length);
+        return out + bytes.length;
+    }
+
+    private int putLong(long value, int out) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative time claim: " + value);
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = out + digits - 1; i >= out; i--) {
+            claims[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return out + digits;
+    }
+
+    /**
+     * Writes {@code value} as the contents of a JSON string in UTF-8, escaping quotes, backslashes and control
+     * characters. Unpaired surrogates become {@code ?}, as with {@link String#getBytes}.
+     */
+    private int putEscaped(String value, int out) {
+        byte[] claims = this.claims;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    claims[out++] = '\\';
+                }
+                claims[out++] = (byte) c;
+            } else if (c < 0x20) {
+                claims[out++] = '\\';
+                claims[out++] = 'u';
+                claims[out++] = '0';
+                claims[out++] = '0';
+                claims[out++] = HEX[c >> 4];
+                claims[out++] = HEX[c & 0xF];
+            } else if (c < 0x800) {
+                claims[out++] = (byte) (0xC0 | c >> 6);
+                claims[out++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                int codePoint = Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))
+                        ? Character.toCodePoint(c, value.charAt(++i)) : -1;
+                if (codePoint < 0) {
+                    claims[out++] = '?';
+                } else {
+                    claims[out++] = (byte) (0xF0 | codePoint >> 18);
+                    claims[out++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    claims[out++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    claims[out++] = (byte) (0x80 | codePoint & 0x3F);
+                }
+            } else {
+                claims[out++] = (byte) (0xE0 | c >> 12);
+                claims[out++] = (byte) (0x80 | c >> 6 & 0x3F);
+                claims[out++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return out;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,54 @@
+package at.htlleonding.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Signs and verifies the {@code header.payload} part of a token with one key. Everything key dependent, including
+ * the encoded protected header with the {@code kid}, is computed once, so a verifier picks its key by looking up the
+ * header segment and neither signing nor verifying touches JSON.
+ */
+public interface TokenSigner {
+    int MAX_SIGNATURE_LENGTH = 64;
+
+    /** JWS {@code alg}. */
+    String algorithm();
+
+    String kid();
+
+    /** The base64url encoded protected header this signer writes. */
+    String encodedHeader();
+
+    int signatureLength();
+
+    /**
+     * Writes the {@link #signatureLength()}-byte signature of {@code data[offset, offset + length)} to {@code out}.
+     */
+    void sign(byte[] data, int offset, int length, byte[] out);
+
+    /**
+     * Checks the first {@link #signatureLength()} bytes of {@code signature}.
+     */
+    boolean verify(byte[] data, int offset, int length, byte[] signature);
+
+    /**
+     * The public key as a JWK, or null for symmetric keys, which must never be published.
+     */
+    Map<String, String> jwk();
+
+    /**
+     * False for retired keys that only verify.
+     */
+    default boolean canSign() {
+        return true;
+    }
+
+    static String encodeHeader(String algorithm, String kid) {
+        if (!kid.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Key id must be base64url or dot separated: " + kid);
+        }
+        String header = "{\"alg\":\"" + algorithm + "\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}";
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(header.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,14 @@
+package at.htlleonding.jwt;
+
+/**
+ * Claims of a token whose signature has been checked; the expiry is checked too unless it came from
+ * {@link JWTService#verifySignature(String, int)}.
+ *
+ * @param expiresAt the {@code exp} claim in epoch seconds
+ * @param jti       the token id, null for tokens issued before ids were added
+ */
+public record VerifiedToken(String username, long expiresAt, String jti) {
+    public boolean isExpired(long nowSeconds) {
+        return expiresAt <= nowSeconds;
+    }
+}
@@ -0,0 +1,101 @@
+package at.htlleonding.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of recently verified tokens so that a reused bearer token costs a slot lookup, a string
+ * comparison and a clock check instead of an HMAC and a payload parse.
+ * <p>
+ * The cache is direct-mapped: the slot is taken from the leading bytes of the token's signature, and a new
+ * token simply replaces whatever occupied its slot. Every hit re-checks the full token text, the expiry and
+ * the signing key generation, so key rotation invalidates all entries without touching them. Revocation is not
+ * handled here: {@link JWTFilter} checks every token, cached or not, against the revocation filter.
+ */
+@ApplicationScoped
+public class VerifiedTokenCache {
+    private static final int SLOT_CHARS = 5;
+
+    @ConfigProperty(name = "jwt.cache.size", defaultValue = "16384")
+    int size;
+
+    @Inject
+    MeterRegistry registry;
+
+    private AtomicReferenceArray<Entry> entries;
+    private int mask;
+    private Counter hits;
+    private Counter misses;
+    private Counter expired;
+    private Counter replaced;
+
+    @PostConstruct
+    void init() {
+        int capacity = Integer.highestOneBit(Math.max(16, size - 1)) << 1;
+        entries = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+        hits = Counter.builder("jwt.cache.requests").tag("result", "hit").register(registry);
+        misses = Counter.builder("jwt.cache.requests").tag("result", "miss").register(registry);
+        expired = Counter.builder("jwt.cache.evictions").tag("cause", "expired").register(registry);
+        replaced = Counter.builder("jwt.cache.evictions").tag("cause", "replaced").register(registry);
+    }
+
+    /**
+     * Returns the cached claims for the token starting at {@code offset} in {@code source}, or null on a miss.
+     */
+    public VerifiedToken get(String source, int offset, long keyGeneration) {
+        int slot = slot(source, offset);
+        Entry entry = slot < 0 ? null : entries.get(slot);
+        if (entry == null || !entry.matches(source, offset)) {
+            misses.increment();
+            return null;
+        }
+        if (entry.keyGeneration != keyGeneration || entry.claims.expiresAt() <= System.currentTimeMillis() / 1000) {
+            if (entries.compareAndSet(slot, entry, null)) {
+                expired.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.claims;
+    }
+
+    /**
+     * Caches the claims of a token that was verified with the key of the given generation.
+     */
+    public void put(String source, int offset, VerifiedToken claims, long keyGeneration) {
+        int slot = slot(source, offset);
+        if (slot < 0) {
+            return;
+        }
+        Entry previous = entries.getAndSet(slot, new Entry(source.substring(offset), claims, keyGeneration));
+        if (previous != null) {
+            replaced.increment();
+        }
+    }
+
+    private int slot(String source, int offset) {
+        int signatureStart = source.lastIndexOf('.') + 1;
+        if (signatureStart <= offset || source.length() - signatureStart < SLOT_CHARS) {
+            return -1;
+        }
+        int bits = 0;
+        for (int i = signatureStart; i < signatureStart + SLOT_CHARS; i++) {
+            bits = (bits << 6) | Base64Url.value(source.charAt(i));
+        }
+        return bits < 0 ? -1 : bits & mask;
+    }
+
+    private record Entry(String token, VerifiedToken claims, long keyGeneration) {
+        boolean matches(String source, int offset) {
+            return source.length() - offset == token.length() && source.startsWith(token, offset);
+        }
+    }
+}
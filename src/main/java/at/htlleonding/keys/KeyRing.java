@@ -0,0 +1,163 @@
+package at.htlleonding.keys;
+
+import at.htlleonding.CredentialManager;
+import at.htlleonding.jwt.AsymmetricTokenSigner;
+import at.htlleonding.jwt.HmacTokenSigner;
+import at.htlleonding.jwt.PemKeys;
+import at.htlleonding.jwt.TokenSigner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.KeyPair;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Peppers and token keys, versioned so that they can be rotated without invalidating live sessions or stored
+ * hashes: new tokens and hashes use the active entries, while retired ones keep verifying until they are removed.
+ * <p>
+ * With {@code keyring.location} set, the ring is read from that file and reloaded whenever its directory changes
+ * (which also covers Kubernetes ConfigMap symlink swaps). Each load builds a new immutable {@link Keys} and publishes
+ * it with one volatile write, so readers never lock and always see a consistent set; a file that fails to parse is
+ * logged and the previous keys stay in place. Without a file, the ring holds the configured {@code pepper} as version
+ * 1 and the single key described by {@code jwt.algorithm}, as before.
+ */
+@ApplicationScoped
+@Slf4j
+public class KeyRing {
+    @ConfigProperty(name = "keyring.location")
+    Optional<Path> location;
+
+    @ConfigProperty(name = "jwt.algorithm", defaultValue = HmacTokenSigner.ALGORITHM)
+    String algorithm;
+
+    @ConfigProperty(name = "jwt.key-id")
+    Optional<String> keyId;
+
+    @ConfigProperty(name = "jwt.private-key.location")
+    Optional<Path> privateKeyLocation;
+
+    @ConfigProperty(name = "jwt.public-key.location")
+    Optional<Path> publicKeyLocation;
+
+    @Inject
+    CredentialManager credentialManager;
+
+    private final AtomicLong generations = new AtomicLong();
+    private volatile Keys keys;
+    private String loadedContent;
+    private WatchService watchService;
+
+    @PostConstruct
+    void init() {
+        if (location.isEmpty()) {
+            keys = configuredKeys();
+            return;
+        }
+        Path file = location.get().toAbsolutePath();
+        if (!reload()) {
+            throw new IllegalStateException("Cannot load key ring from " + file);
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot watch " + file.getParent(), e);
+        }
+        Thread watcher = new Thread(this::watch, "keyring-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * The current snapshot. Callers that use several keys for one operation should read it once.
+     */
+    public Keys keys() {
+        return keys;
+    }
+
+    /**
+     * Re-reads the ring file and publishes it if its content changed.
+     *
+     * @return false if the file could not be read or parsed; the previous keys stay active
+     */
+    synchronized boolean reload() {
+        Path file = location.orElseThrow().toAbsolutePath();
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            if (content.equals(loadedContent)) {
+                return true;
+            }
+            Properties properties = new Properties();
+            properties.load(new StringReader(content));
+            Keys loaded = Keys.parse(generations.incrementAndGet(), properties, file.getParent());
+            keys = loaded;
+            loadedContent = content;
+            log.info("Loaded key ring {}: pepper version {}, token key {}", file, loaded.activePepperVersion(), loaded.activeSigner().kid());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Cannot load key ring {}, keeping the current keys", file, e);
+            return false;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                reload();
+                if (!key.reset()) {
+                    log.warn("Key ring directory is no longer watched");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Keys configuredKeys() {
+        TokenSigner signer;
+        if (HmacTokenSigner.ALGORITHM.equals(algorithm)) {
+            signer = new HmacTokenSigner(credentialManager.getPepper().getBytes(StandardCharsets.UTF_8), keyId.orElse(HmacTokenSigner.LEGACY_KID));
+        } else {
+            signer = AsymmetricTokenSigner.of(algorithm, configuredKeyPair(), keyId.orElse(null));
+        }
+        return new Keys(generations.incrementAndGet(), PepperedHash.LEGACY_VERSION,
+                Map.of(PepperedHash.LEGACY_VERSION, credentialManager.getPepper()), signer, List.of(signer));
+    }
+
+    private KeyPair configuredKeyPair() {
+        if (privateKeyLocation.isPresent() && publicKeyLocation.isPresent()) {
+            return PemKeys.read(PemKeys.keyAlgorithm(algorithm), privateKeyLocation.get(), publicKeyLocation.get());
+        }
+        log.warn("No jwt.private-key.location/jwt.public-key.location configured, signing with a generated {} key that only lives as long as this process", algorithm);
+        return AsymmetricTokenSigner.generateKeyPair(algorithm);
+    }
+}
@@ -0,0 +1,192 @@
+package at.htlleonding.keys;
+
+import at.htlleonding.jwt.AsymmetricTokenSigner;
+import at.htlleonding.jwt.HmacTokenSigner;
+import at.htlleonding.jwt.PemKeys;
+import at.htlleonding.jwt.TokenSigner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * One immutable version of the key ring: peppers by version and token keys by {@code kid}, each with one active
+ * entry used for new hashes and tokens while the others are kept for verification only.
+ * <p>
+ * Token keys are indexed by their encoded header in an open-addressing table, so a verifier finds the key for a
+ * token by hashing the header segment in place: one pass over the characters and one comparison, no substring.
+ */
+public final class Keys {
+    private final long generation;
+    private final int activePepperVersion;
+    private final Map<Integer, String> peppers;
+    private final TokenSigner activeSigner;
+    private final String[] headers;
+    private final TokenSigner[] signers;
+    private final int mask;
+    private final List<Map<String, String>> publicKeys;
+
+    Keys(long generation, int activePepperVersion, Map<Integer, String> peppers, TokenSigner activeSigner, List<TokenSigner> tokenSigners) {
+        if (!peppers.containsKey(activePepperVersion)) {
+            throw new IllegalArgumentException("Active pepper version " + activePepperVersion + " is not defined");
+        }
+        if (!activeSigner.canSign()) {
+            throw new IllegalArgumentException("Active token key " + activeSigner.kid() + " has no private key");
+        }
+        this.generation = generation;
+        this.activePepperVersion = activePepperVersion;
+        this.peppers = Map.copyOf(peppers);
+        this.activeSigner = activeSigner;
+
+        Map<String, TokenSigner> byHeader = new LinkedHashMap<>();
+        List<Map<String, String>> jwks = new ArrayList<>();
+        for (TokenSigner signer : tokenSigners) {
+            if (byHeader.put(signer.encodedHeader(), signer) != null) {
+                throw new IllegalArgumentException("Duplicate token key " + signer.kid());
+            }
+            if (HmacTokenSigner.ALGORITHM.equals(signer.algorithm()) && HmacTokenSigner.LEGACY_KID.equals(signer.kid())) {
+                byHeader.put(HmacTokenSigner.LEGACY_HEADER, signer);
+            }
+            if (signer.jwk() != null) {
+                jwks.add(signer.jwk());
+            }
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, byHeader.size() * 2 - 1)) << 1;
+        this.headers = new String[capacity];
+        this.signers = new TokenSigner[capacity];
+        this.mask = capacity - 1;
+        byHeader.forEach((header, signer) -> {
+            int slot = hash(header, 0, header.length()) & mask;
+            while (headers[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            headers[slot] = header;
+            signers[slot] = signer;
+        });
+        this.publicKeys = List.copyOf(jwks);
+    }
+
+    /**
+     * Increases with every load; results derived from an older snapshot can be discarded by comparing it.
+     */
+    public long generation() {
+        return generation;
+    }
+
+    public int activePepperVersion() {
+        return activePepperVersion;
+    }
+
+    public String activePepper() {
+        return peppers.get(activePepperVersion);
+    }
+
+    /**
+     * The pepper of {@code version}, or null once it has been removed from the ring.
+     */
+    public String pepper(int version) {
+        return peppers.get(version);
+    }
+
+    public TokenSigner activeSigner() {
+        return activeSigner;
+    }
+
+    /**
+     * The key whose header is {@code source[start, end)}, or null if the token was not issued by any key in the ring.
+     */
+    public TokenSigner signerFor(String source, int start, int end) {
+        int length = end - start;
+        for (int slot = hash(source, start, end) & mask; ; slot = (slot + 1) & mask) {
+            String header = headers[slot];
+            if (header == null) {
+                return null;
+            }
+            if (header.length() == length && source.startsWith(header, start)) {
+                return signers[slot];
+            }
+        }
+    }
+
+    /**
+     * Public JWKs of all asymmetric keys, active and retired. The list instance changes with every load.
+     */
+    public List<Map<String, String>> publicKeys() {
+        return publicKeys;
+    }
+
+    private static int hash(String source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Parses a key ring file:
+     * <pre>
+     * pepper.active=2
+     * pepper.1=...
+     * pepper.2=...
+     * jwt.active=2025-10
+     * jwt.2025-10.algorithm=EdDSA
+     * jwt.2025-10.private-key=2025-10-private.pem
+     * jwt.2025-10.public-key=2025-10-public.pem
+     * jwt.hs256.algorithm=HS256
+     * jwt.hs256.secret=...
+     * </pre>
+     * Key file paths are resolved against {@code directory}. Retired asymmetric keys need only their public key.
+     */
+    static Keys parse(long generation, Properties properties, Path directory) {
+        int activePepper = Integer.parseInt(required(properties, "pepper.active"));
+        Map<Integer, String> peppers = new LinkedHashMap<>();
+        List<String> kids = new ArrayList<>();
+        for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+            if (name.startsWith("pepper.") && !name.equals("pepper.active")) {
+                peppers.put(Integer.parseInt(name.substring("pepper.".length())), properties.getProperty(name));
+            } else if (name.startsWith("jwt.") && name.endsWith(".algorithm")) {
+                kids.add(name.substring("jwt.".length(), name.length() - ".algorithm".length()));
+            }
+        }
+        String activeKid = required(properties, "jwt.active");
+        TokenSigner active = null;
+        List<TokenSigner> signers = new ArrayList<>();
+        for (String kid : kids) {
+            TokenSigner signer = signer(properties, directory, kid);
+            signers.add(signer);
+            if (kid.equals(activeKid)) {
+                active = signer;
+            }
+        }
+        if (active == null) {
+            throw new IllegalArgumentException("Active token key " + activeKid + " is not defined");
+        }
+        return new Keys(generation, activePepper, peppers, active, signers);
+    }
+
+    private static TokenSigner signer(Properties properties, Path directory, String kid) {
+        String prefix = "jwt." + kid + ".";
+        String algorithm = properties.getProperty(prefix + "algorithm");
+        if (HmacTokenSigner.ALGORITHM.equals(algorithm)) {
+            return new HmacTokenSigner(required(properties, prefix + "secret").getBytes(StandardCharsets.UTF_8), kid);
+        }
+        String privateKey = properties.getProperty(prefix + "private-key");
+        return AsymmetricTokenSigner.of(algorithm, PemKeys.read(PemKeys.keyAlgorithm(algorithm),
+                privateKey == null ? null : directory.resolve(privateKey),
+                directory.resolve(required(properties, prefix + "public-key"))), kid);
+    }
+
+    private static String required(Properties properties, String name) {
+        String value = properties.getProperty(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Key ring entry " + name + " is missing");
+        }
+        return value.trim();
+    }
+}
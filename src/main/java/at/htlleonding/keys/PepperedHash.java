@@ -0,0 +1,46 @@
+package at.htlleonding.keys;
+
+/**
+ * Stored password hashes are prefixed with the version of the pepper they were made with, {@code p<version>$}
+ * followed by the Argon2 encoding. Hashes without a prefix predate pepper versions and use version 1.
+ */
+public final class PepperedHash {
+    public static final int LEGACY_VERSION = 1;
+
+    private PepperedHash() {
+    }
+
+    public static String format(int pepperVersion, String argon2Hash) {
+        return "p" + pepperVersion + argon2Hash;
+    }
+
+    public static int version(String stored) {
+        int end = argon2Start(stored);
+        if (end == 0) {
+            return LEGACY_VERSION;
+        }
+        return Integer.parseInt(stored, 1, end, 10);
+    }
+
+    /**
+     * The Argon2 encoded hash without the version prefix.
+     */
+    public static String argon2(String stored) {
+        int start = argon2Start(stored);
+        return start == 0 ? stored : stored.substring(start);
+    }
+
+    private static int argon2Start(String stored) {
+        if (stored.isEmpty() || stored.charAt(0) != 'p') {
+            return 0;
+        }
+        int i = 1;
+        while (i < stored.length() && Character.isDigit(stored.charAt(i))) {
+            i++;
+        }
+        if (i == 1 || i >= stored.length() || stored.charAt(i) != '$') {
+            throw new IllegalArgumentException("Malformed pepper version prefix");
+        }
+        return i;
+    }
+}
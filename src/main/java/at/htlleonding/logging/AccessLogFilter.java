@@ -0,0 +1,65 @@
+package at.htlleonding.logging;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+
+/**
+ * Writes one JSON line per request to the {@code access} logger: method, route (the resource method, never the
+ * raw path, which may carry usernames), status, outcome and duration. The logger has its own async handler with a
+ * bounded queue (see application.properties), so the request thread only formats the line and never waits on I/O.
+ */
+@Provider
+@PreMatching
+@Slf4j(topic = "access")
+public class AccessLogFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String START_PROPERTY = "access.start";
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (log.isInfoEnabled()) {
+            requestContext.setProperty(START_PROPERTY, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!log.isInfoEnabled() || !(requestContext.getProperty(START_PROPERTY) instanceof Long start)) {
+            return;
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        int status = responseContext.getStatus();
+        log.info("{\"ts\":\"{}\",\"method\":\"{}\",\"route\":\"{}\",\"status\":{},\"outcome\":\"{}\",\"duration_us\":{}}",
+                Instant.now(), requestContext.getMethod(), route(), status, outcome(status), micros);
+    }
+
+    private String route() {
+        Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+        return method == null ? "unmatched" : method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    static String outcome(int status) {
+        if (status < 400) {
+            return "success";
+        }
+        return switch (status) {
+            case 401, 403 -> "unauthorized";
+            case 404 -> "not_found";
+            case 429 -> "throttled";
+            case 503 -> "saturated";
+            default -> status < 500 ? "rejected" : "error";
+        };
+    }
+}
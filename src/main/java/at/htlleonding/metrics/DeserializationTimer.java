@@ -0,0 +1,36 @@
+package at.htlleonding.metrics;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Times the JSON deserialization of request bodies into DTOs. Raw {@link InputStream} bodies (the NDJSON bulk
+ * import) are read by the resource itself and are not timed here.
+ */
+@Provider
+public class DeserializationTimer implements ReaderInterceptor {
+    @Inject
+    LoginMetrics metrics;
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
+        if (context.getType() == InputStream.class) {
+            return context.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            Object body = context.proceed();
+            metrics.record(LoginMetrics.Stage.DESERIALIZE, LoginMetrics.Outcome.SUCCESS, start);
+            return body;
+        } catch (IOException | RuntimeException e) {
+            metrics.record(LoginMetrics.Stage.DESERIALIZE, LoginMetrics.Outcome.ERROR, start);
+            throw e;
+        }
+    }
+}
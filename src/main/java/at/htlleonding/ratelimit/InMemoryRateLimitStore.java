@@ -0,0 +1,92 @@
+package at.htlleonding.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.quarkus.arc.DefaultBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local {@link RateLimitStore}. Each key owns one {@link AtomicLong} that is only ever updated by CAS, so
+ * concurrent logins never block each other; idle keys are dropped after {@code rate-limit.store.idle-timeout}.
+ */
+@ApplicationScoped
+@DefaultBean
+public class InMemoryRateLimitStore implements RateLimitStore {
+    private static final int COUNT_BITS = 16;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    @ConfigProperty(name = "rate-limit.store.max-keys", defaultValue = "1000000")
+    long maxKeys;
+
+    @ConfigProperty(name = "rate-limit.store.idle-timeout", defaultValue = "PT1H")
+    Duration idleTimeout;
+
+    private Cache<String, AtomicLong> buckets;
+    private Cache<String, AtomicLong> failures;
+    private Cache<String, Long> locks;
+
+    @PostConstruct
+    void init() {
+        buckets = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleTimeout).build();
+        failures = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleTimeout).build();
+        locks = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterWrite(idleTimeout).build();
+    }
+
+    @Override
+    public long acquire(String key, long emissionMillis, long toleranceMillis, long nowMillis) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong());
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long start = Math.max(tat, nowMillis);
+            if (start - nowMillis > toleranceMillis) {
+                return start - toleranceMillis - nowMillis;
+            }
+            if (theoreticalArrival.compareAndSet(tat, start + emissionMillis)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * The window start and the count share one long: the high bits hold the start, the low 16 bits the count.
+     */
+    @Override
+    public int recordFailure(String key, long windowMillis, long nowMillis) {
+        AtomicLong window = failures.get(key, k -> new AtomicLong());
+        while (true) {
+            long state = window.get();
+            long windowStart = state >>> COUNT_BITS;
+            long count = state & COUNT_MASK;
+            long next;
+            if (nowMillis - windowStart >= windowMillis) {
+                next = (nowMillis << COUNT_BITS) | 1;
+            } else {
+                next = (windowStart << COUNT_BITS) | Math.min(count + 1, COUNT_MASK);
+            }
+            if (window.compareAndSet(state, next)) {
+                return (int) (next & COUNT_MASK);
+            }
+        }
+    }
+
+    @Override
+    public void resetFailures(String key) {
+        failures.invalidate(key);
+    }
+
+    @Override
+    public void lock(String key, long untilMillis) {
+        locks.put(key, untilMillis);
+    }
+
+    @Override
+    public long lockedUntil(String key, long nowMillis) {
+        Long until = locks.getIfPresent(key);
+        return until == null || until <= nowMillis ? 0 : until;
+    }
+}
@@ -0,0 +1,122 @@
+package at.htlleonding.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Login throttling that runs before any Argon2 work: a token bucket per client IP and one per username and client
+ * IP, plus a lockout after too many failed attempts within a window.
+ * <p>
+ * Everything that is spent before the password is checked is keyed on the client IP, so nobody can keep a user at
+ * 429 from another address, neither by guessing wrong passwords nor by simply sending requests for that username.
+ * The price is that guesses spread over many addresses are only bounded per address
+ * ({@code login.rate-limit.username.per-minute} per account and address, {@code login.rate-limit.ip.per-minute} per
+ * address), not per account.
+ */
+@ApplicationScoped
+@Slf4j
+public class LoginThrottle {
+
+    @ConfigProperty(name = "login.rate-limit.username.per-minute", defaultValue = "10")
+    int usernamePerMinute;
+
+    @ConfigProperty(name = "login.rate-limit.username.burst", defaultValue = "5")
+    int usernameBurst;
+
+    @ConfigProperty(name = "login.rate-limit.ip.per-minute", defaultValue = "60")
+    int ipPerMinute;
+
+    @ConfigProperty(name = "login.rate-limit.ip.burst", defaultValue = "20")
+    int ipBurst;
+
+    @ConfigProperty(name = "login.lockout.max-failures", defaultValue = "5")
+    int maxFailures;
+
+    @ConfigProperty(name = "login.lockout.window", defaultValue = "PT15M")
+    Duration failureWindow;
+
+    @ConfigProperty(name = "login.lockout.duration", defaultValue = "PT15M")
+    Duration lockoutDuration;
+
+    @Inject
+    RateLimitStore store;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Counter rejectedByUsername;
+    private Counter rejectedByIp;
+    private Counter rejectedByLockout;
+    private Counter lockouts;
+
+    @PostConstruct
+    void init() {
+        rejectedByUsername = Counter.builder("login.throttle.rejected").tag("reason", "username").register(registry);
+        rejectedByIp = Counter.builder("login.throttle.rejected").tag("reason", "ip").register(registry);
+        rejectedByLockout = Counter.builder("login.throttle.rejected").tag("reason", "locked").register(registry);
+        lockouts = Counter.builder("login.throttle.lockouts").register(registry);
+    }
+
+    /**
+     * @throws RateLimitedException if the username is locked for this address or either bucket is empty
+     */
+    public void checkAllowed(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        String userKey = userKey(username);
+
+        long lockedUntil = store.lockedUntil("lock:" + userKey + "|" + clientIp, now);
+        if (lockedUntil > 0) {
+            rejectedByLockout.increment();
+            throw new RateLimitedException("Account temporarily locked", toSeconds(lockedUntil - now));
+        }
+
+        long ipWait = acquire("ip:" + clientIp, ipPerMinute, ipBurst, now);
+        if (ipWait > 0) {
+            rejectedByIp.increment();
+            throw new RateLimitedException("Too many login attempts from this address", toSeconds(ipWait));
+        }
+
+        long userWait = acquire("user:" + userKey + "|" + clientIp, usernamePerMinute, usernameBurst, now);
+        if (userWait > 0) {
+            rejectedByUsername.increment();
+            throw new RateLimitedException("Too many login attempts for this user", toSeconds(userWait));
+        }
+    }
+
+    public void recordFailure(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        String key = userKey(username) + "|" + clientIp;
+        int failures = store.recordFailure("fail:" + key, failureWindow.toMillis(), now);
+        if (failures >= maxFailures) {
+            store.lock("lock:" + key, now + lockoutDuration.toMillis());
+            store.resetFailures("fail:" + key);
+            lockouts.increment();
+            log.warn("Locked login for {} from {} after {} failed attempts", username, clientIp, failures);
+        }
+    }
+
+    public void recordSuccess(String username, String clientIp) {
+        store.resetFailures("fail:" + userKey(username) + "|" + clientIp);
+    }
+
+    private long acquire(String key, int perMinute, int burst, long now) {
+        long emission = Duration.ofMinutes(1).toMillis() / Math.max(1, perMinute);
+        return store.acquire(key, emission, emission * Math.max(0, burst - 1), now);
+    }
+
+    private static String userKey(String username) {
+        return username == null ? "" : username.toLowerCase(Locale.ROOT);
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+}
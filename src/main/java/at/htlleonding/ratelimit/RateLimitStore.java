@@ -0,0 +1,33 @@
+package at.htlleonding.ratelimit;
+
+/**
+ * Backend holding rate limit and lockout state. The in-memory implementation only limits one node; a shared
+ * implementation (e.g. on Redis) can replace it to enforce the limits across all nodes.
+ * All times are epoch milliseconds so that state can be shared between hosts.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one permit from the token bucket {@code key} (GCRA formulation: one permit every
+     * {@code emissionMillis}, bursts up to {@code toleranceMillis / emissionMillis + 1}).
+     *
+     * @return 0 if the permit was granted, otherwise the milliseconds until one becomes available
+     */
+    long acquire(String key, long emissionMillis, long toleranceMillis, long nowMillis);
+
+    /**
+     * Counts a failure for {@code key} in a fixed window of {@code windowMillis}.
+     *
+     * @return the number of failures in the current window, including this one
+     */
+    int recordFailure(String key, long windowMillis, long nowMillis);
+
+    void resetFailures(String key);
+
+    void lock(String key, long untilMillis);
+
+    /**
+     * @return the end of the lockout of {@code key}, or 0 if it is not locked
+     */
+    long lockedUntil(String key, long nowMillis);
+}
@@ -0,0 +1,16 @@
+package at.htlleonding.ratelimit;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a login attempt is rejected before any password work is done.
+ */
+@Getter
+public class RateLimitedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String reason, long retryAfterSeconds) {
+        super(reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
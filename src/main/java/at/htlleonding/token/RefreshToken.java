@@ -0,0 +1,55 @@
+package at.htlleonding.token;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/**
+ * One refresh token of a rotation family. Only a keyed hash of the token is stored; the token itself is handed to
+ * the client once and never persisted.
+ */
+@Getter
+@Setter
+@ToString(exclude = "tokenHash")
+@NoArgsConstructor
+@Entity
+@Table(name = "refresh_tokens",
+        uniqueConstraints = @UniqueConstraint(name = "uk_refresh_tokens_hash", columnNames = "token_hash"),
+        indexes = {
+                @Index(name = "ix_refresh_tokens_family", columnList = "family_id"),
+                @Index(name = "ix_refresh_tokens_username", columnList = "username"),
+                @Index(name = "ix_refresh_tokens_expires", columnList = "expires_at")
+        })
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, length = 32)
+    private byte[] tokenHash;
+
+    @Column(nullable = false)
+    private UUID familyId;
+
+    @Column(nullable = false)
+    private String username;
+
+    /** Epoch seconds. */
+    @Column(nullable = false)
+    private long expiresAt;
+
+    /** Set once the token has been exchanged; presenting it again means it was stolen. */
+    @Column(nullable = false)
+    private boolean used;
+
+    public RefreshToken(byte[] tokenHash, UUID familyId, String username, long expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.username = username;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,36 @@
+package at.htlleonding.token;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.UUID;
+
+@ApplicationScoped
+public class RefreshTokenRepository implements PanacheRepositoryBase<RefreshToken, UUID> {
+    public void addToken(RefreshToken token) {
+        persist(token);
+    }
+    /**
+     * Lookup by the unique token hash index.
+     */
+    public RefreshToken findByHash(byte[] tokenHash) {
+        return find("tokenHash", tokenHash).firstResult();
+    }
+    /**
+     * Marks the token used unless another request already did.
+     *
+     * @return 1 if this caller consumed the token, 0 if it had been used before
+     */
+    public int markUsed(UUID id) {
+        return update("used = true where id = ?1 and used = false", id);
+    }
+    public long deleteFamily(UUID familyId) {
+        return delete("familyId", familyId);
+    }
+    public long deleteByUsername(String username) {
+        return delete("username", username);
+    }
+    public long deleteExpired(long now) {
+        return delete("expiresAt <= ?1", now);
+    }
+}
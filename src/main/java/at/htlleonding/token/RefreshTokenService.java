@@ -0,0 +1,153 @@
+package at.htlleonding.token;
+
+import at.htlleonding.CredentialManager;
+import at.htlleonding.jwt.HmacSigner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens, so that clients get new access tokens without sending the password (and the server
+ * without running Argon2) again.
+ * <p>
+ * A token is 32 random bytes; the table only holds {@code HMAC(secret, token)}, which is also the lookup key, so a
+ * refresh costs one HMAC and one unique-index lookup. Every token can be exchanged once, for a new access token and
+ * a successor in the same family. Presenting an already exchanged token means it was copied, so the whole family is
+ * revoked and both the thief and the legitimate client have to log in again.
+ */
+@ApplicationScoped
+@Slf4j
+public class RefreshTokenService {
+    private static final byte[] PURPOSE = "refresh-token-v1".getBytes(StandardCharsets.UTF_8);
+    private static final int TOKEN_LENGTH = 32;
+
+    @ConfigProperty(name = "refresh.token.ttl", defaultValue = "P14D")
+    Duration ttl;
+
+    @Inject
+    RefreshTokenRepository tokenRepo;
+
+    @Inject
+    CredentialManager credentialManager;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final SecureRandom random = new SecureRandom();
+    private HmacSigner signer;
+    private Counter reuse;
+
+    public record Rotation(String username, String refreshToken) {
+    }
+
+    @PostConstruct
+    void init() {
+        signer = new HmacSigner(credentialManager.getSecret().getBytes(StandardCharsets.UTF_8));
+        reuse = Counter.builder("login.refresh.reuse")
+                .description("Refresh tokens presented after they had already been exchanged")
+                .register(registry);
+    }
+
+    /**
+     * Starts a new family for a fresh login.
+     */
+    @Transactional
+    public String issue(String username) {
+        return issue(username, UUID.randomUUID(), System.currentTimeMillis() / 1000 + ttl.toSeconds());
+    }
+
+    /**
+     * Exchanges {@code token} for its successor.
+     *
+     * @return the owner and the new refresh token, or null if the token is unknown, expired, or was used before
+     */
+    @Transactional
+    public Rotation refresh(String token) {
+        byte[] hash = hash(token);
+        if (hash == null) {
+            return null;
+        }
+        RefreshToken stored = tokenRepo.findByHash(hash);
+        if (stored == null || stored.getExpiresAt() <= System.currentTimeMillis() / 1000) {
+            return null;
+        }
+        if (stored.isUsed() || tokenRepo.markUsed(stored.getId()) == 0) {
+            reuse.increment();
+            log.warn("Refresh token reused, revoking family {} of {}", stored.getFamilyId(), stored.getUsername());
+            tokenRepo.deleteFamily(stored.getFamilyId());
+            return null;
+        }
+        String successor = issue(stored.getUsername(), stored.getFamilyId(), stored.getExpiresAt());
+        return new Rotation(stored.getUsername(), successor);
+    }
+
+    /**
+     * Revokes the family {@code token} belongs to, i.e. logs that client out.
+     *
+     * @return false if the token is unknown
+     */
+    @Transactional
+    public boolean revoke(String token) {
+        byte[] hash = hash(token);
+        RefreshToken stored = hash == null ? null : tokenRepo.findByHash(hash);
+        if (stored == null) {
+            return false;
+        }
+        tokenRepo.deleteFamily(stored.getFamilyId());
+        return true;
+    }
+
+    /**
+     * Revokes every family of the user; joins the caller's transaction, e.g. a password change.
+     */
+    @Transactional
+    public void revokeAll(String username) {
+        tokenRepo.deleteByUsername(username);
+    }
+
+    @Scheduled(every = "${refresh.token.purge-interval:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void purgeExpired() {
+        long purged = tokenRepo.deleteExpired(System.currentTimeMillis() / 1000);
+        log.debug("Purged {} expired refresh tokens", purged);
+    }
+
+    private String issue(String username, UUID familyId, long expiresAt) {
+        byte[] token = new byte[TOKEN_LENGTH];
+        random.nextBytes(token);
+        tokenRepo.addToken(new RefreshToken(mac(token), familyId, username, expiresAt));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    private byte[] hash(String token) {
+        if (token == null) {
+            return null;
+        }
+        byte[] decoded;
+        try {
+            decoded = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return decoded.length == TOKEN_LENGTH ? mac(decoded) : null;
+    }
+
+    private byte[] mac(byte[] token) {
+        Mac mac = signer.mac();
+        mac.update(PURPOSE);
+        return mac.doFinal(token);
+    }
+}
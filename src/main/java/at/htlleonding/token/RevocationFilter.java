@@ -0,0 +1,160 @@
+package at.htlleonding.token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bloom filter over revoked token ids, split into time slots by the token's {@code exp}. A lookup only probes the
+ * slot of the token's own expiry, and once a slot's whole time range has passed it is simply dropped, so revoked
+ * ids age out together with the tokens they belong to and the filter never needs a full rebuild.
+ * <p>
+ * {@link #mightContain(String, long)} has no false negatives for tokens inside the horizon; tokens expiring beyond
+ * it always answer true and fall through to the store. Bits are set with CAS, so adds and lookups never lock.
+ */
+public final class RevocationFilter {
+    private final long slotSeconds;
+    private final int bitsPerSlot;
+    private final int hashes;
+    private final AtomicReferenceArray<Slot> slots;
+
+    /**
+     * @param slotSeconds width of one slot
+     * @param horizonSeconds longest remaining token lifetime the filter covers
+     * @param expectedPerSlot revocations per slot at which the false positive rate reaches {@code fpp}
+     * @param fpp target false positive rate
+     */
+    public RevocationFilter(long slotSeconds, long horizonSeconds, int expectedPerSlot, double fpp) {
+        this.slotSeconds = slotSeconds;
+        double bits = -expectedPerSlot * Math.log(fpp) / (Math.log(2) * Math.log(2));
+        this.bitsPerSlot = (int) Math.max(64, Math.ceil(bits / 64) * 64);
+        this.hashes = (int) Math.max(1, Math.round(bitsPerSlot / (double) expectedPerSlot * Math.log(2)));
+        this.slots = new AtomicReferenceArray<>((int) ((horizonSeconds + slotSeconds - 1) / slotSeconds) + 1);
+    }
+
+    /**
+     * Records a revoked id. Returns false if its token lies beyond the horizon and was not recorded.
+     */
+    public boolean add(String jti, long expiresAt, long nowSeconds) {
+        long bucket = expiresAt / slotSeconds;
+        if (!inHorizon(bucket, nowSeconds)) {
+            return false;
+        }
+        Slot slot = slotFor(bucket);
+        long hash = hash(jti);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitsPerSlot);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current = slot.bits.get(word);
+            while ((current & mask) == 0 && !slot.bits.compareAndSet(word, current, current | mask)) {
+                current = slot.bits.get(word);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False if the token is certainly not revoked; true if it may be and the store has to decide.
+     */
+    public boolean mightContain(String jti, long expiresAt, long nowSeconds) {
+        long bucket = expiresAt / slotSeconds;
+        if (!inHorizon(bucket, nowSeconds)) {
+            return true;
+        }
+        Slot slot = slots.get(index(bucket));
+        if (slot == null || slot.bucket < bucket) {
+            return false;
+        }
+        if (slot.bucket > bucket) {
+            return true;
+        }
+        long hash = hash(jti);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitsPerSlot);
+            if ((slot.bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean mightContain(String jti, long expiresAt) {
+        return mightContain(jti, expiresAt, System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Drops the slots whose tokens have all expired.
+     *
+     * @return the number of dropped slots
+     */
+    public int expire(long nowSeconds) {
+        long current = nowSeconds / slotSeconds;
+        int dropped = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.bucket < current && slots.compareAndSet(i, slot, null)) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    public int bitsPerSlot() {
+        return bitsPerSlot;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    private boolean inHorizon(long bucket, long nowSeconds) {
+        long current = nowSeconds / slotSeconds;
+        return bucket >= current && bucket < current + slots.length();
+    }
+
+    private Slot slotFor(long bucket) {
+        int index = index(bucket);
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot != null && slot.bucket >= bucket) {
+                return slot;
+            }
+            Slot fresh = new Slot(bucket, bitsPerSlot);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int index(long bucket) {
+        return (int) Math.floorMod(bucket, (long) slots.length());
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the SplitMix64 mixer so both halves are usable as hashes.
+     */
+    static long hash(String jti) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : jti.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static final class Slot {
+        private final long bucket;
+        private final AtomicLongArray bits;
+
+        Slot(long bucket, int bits) {
+            this.bucket = bucket;
+            this.bits = new AtomicLongArray(bits >>> 6);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package at.htlleonding.token;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * An access token revoked before its {@code exp}. Rows are only needed until then and are purged afterwards.
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "ix_revoked_tokens_revoked", columnList = "revoked_at"),
+        @Index(name = "ix_revoked_tokens_expires", columnList = "expires_at")
+})
+public class RevokedToken {
+    @Id
+    @Column(length = 32)
+    private String jti;
+
+    @Column(nullable = false)
+    private String username;
+
+    /** Epoch seconds, copied from the token. */
+    @Column(nullable = false)
+    private long expiresAt;
+
+    /** Epoch milliseconds; nodes sync incrementally by this column. */
+    @Column(nullable = false)
+    private long revokedAt;
+
+    public RevokedToken(String jti, String username, long expiresAt, long revokedAt) {
+        this.jti = jti;
+        this.username = username;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+}
@@ -0,0 +1,44 @@
+package at.htlleonding.token;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+
+import java.util.List;
+
+@ApplicationScoped
+public class RevokedTokenRepository implements PanacheRepositoryBase<RevokedToken, String> {
+    /** Instantiated by Hibernate through its constructor, which a native image has to keep. */
+    @RegisterForReflection
+    public record Entry(String jti, long expiresAt) {
+    }
+
+    /**
+     * Primary key lookup, only reached for filter hits.
+     */
+    @ActivateRequestContext
+    public boolean isRevoked(String jti) {
+        return !getEntityManager()
+                .createQuery("select 1 from RevokedToken r where r.jti = :jti", Integer.class)
+                .setParameter("jti", jti)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+    /**
+     * Unexpired revocations recorded at or after {@code revokedSince} (epoch millis), read from the revoked_at
+     * index as projections.
+     */
+    @ActivateRequestContext
+    public List<Entry> findRevokedSince(long revokedSince, long now) {
+        return getEntityManager()
+                .createQuery("select r.jti, r.expiresAt from RevokedToken r where r.revokedAt >= :since and r.expiresAt > :now", Entry.class)
+                .setParameter("since", revokedSince)
+                .setParameter("now", now)
+                .getResultList();
+    }
+    public long deleteExpired(long now) {
+        return delete("expiresAt <= ?1", now);
+    }
+}
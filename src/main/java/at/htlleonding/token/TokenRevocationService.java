@@ -0,0 +1,136 @@
+package at.htlleonding.token;
+
+import at.htlleonding.jwt.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+
+/**
+ * Access token revocation. Revoked ids are stored in {@code revoked_tokens} and mirrored into a
+ * {@link RevocationFilter}, so that {@link #isRevoked(VerifiedToken)} answers almost every request from memory and
+ * only filter hits (revoked tokens and false positives) cost a primary key lookup.
+ * <p>
+ * Every node pulls new revocations incrementally by {@code revoked_at}, re-reading an overlap window to pick up rows
+ * whose transactions committed late; adding an id twice is harmless. Until the first sync has completed, every
+ * check goes to the store.
+ */
+@ApplicationScoped
+@Slf4j
+public class TokenRevocationService {
+    @ConfigProperty(name = "revocation.filter.slot", defaultValue = "PT5M")
+    Duration slot;
+
+    @ConfigProperty(name = "revocation.filter.horizon", defaultValue = "PT1H")
+    Duration horizon;
+
+    @ConfigProperty(name = "revocation.filter.expected-per-slot", defaultValue = "10000")
+    int expectedPerSlot;
+
+    @ConfigProperty(name = "revocation.filter.fpp", defaultValue = "0.01")
+    double fpp;
+
+    @ConfigProperty(name = "revocation.sync.overlap", defaultValue = "PT10S")
+    Duration overlap;
+
+    @Inject
+    RevokedTokenRepository revokedRepo;
+
+    @Inject
+    MeterRegistry registry;
+
+    RevocationFilter filter;
+    volatile boolean synced;
+    private long lastSync;
+    private Counter filtered;
+    private Counter revoked;
+    private Counter falsePositives;
+
+    @PostConstruct
+    void init() {
+        filter = new RevocationFilter(slot.toSeconds(), horizon.toSeconds(), expectedPerSlot, fpp);
+        filtered = Counter.builder("jwt.revocation.checks").tag("result", "filtered").register(registry);
+        revoked = Counter.builder("jwt.revocation.checks").tag("result", "revoked").register(registry);
+        falsePositives = Counter.builder("jwt.revocation.checks").tag("result", "false_positive").register(registry);
+        log.debug("Revocation filter with {} bits and {} hashes per slot", filter.bitsPerSlot(), filter.hashes());
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Initial revocation sync failed, checking every token against the store until a sync succeeds", e);
+        }
+    }
+
+    /**
+     * True if the token was revoked. Tokens without a {@code jti} predate revocation and cannot be revoked.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.jti() == null) {
+            return false;
+        }
+        if (synced && !filter.mightContain(token.jti(), token.expiresAt())) {
+            filtered.increment();
+            return false;
+        }
+        if (revokedRepo.isRevoked(token.jti())) {
+            revoked.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Revokes the token until its expiry. Takes effect on this node immediately and on the others with their next
+     * sync.
+     */
+    @Transactional
+    public void revoke(VerifiedToken token) {
+        if (token.jti() == null) {
+            throw new IllegalArgumentException("Token has no id and cannot be revoked");
+        }
+        if (revokedRepo.findById(token.jti()) == null) {
+            revokedRepo.persist(new RevokedToken(token.jti(), token.username(), token.expiresAt(), System.currentTimeMillis()));
+        }
+        filter.add(token.jti(), token.expiresAt(), System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Adds the revocations recorded since the last sync (all unexpired ones on the first run) and drops expired
+     * filter slots.
+     */
+    @Scheduled(every = "${revocation.sync.interval:5s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    synchronized void sync() {
+        long started = System.currentTimeMillis();
+        long now = started / 1000;
+        long since = synced ? lastSync - overlap.toMillis() : 0;
+        int added = 0;
+        for (RevokedTokenRepository.Entry entry : revokedRepo.findRevokedSince(since, now)) {
+            if (filter.add(entry.jti(), entry.expiresAt(), now)) {
+                added++;
+            }
+        }
+        filter.expire(now);
+        lastSync = started;
+        synced = true;
+        log.debug("Synced {} revoked tokens", added);
+    }
+
+    @Scheduled(every = "${revocation.purge-interval:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void purgeExpired() {
+        long purged = revokedRepo.deleteExpired(System.currentTimeMillis() / 1000);
+        log.debug("Purged {} expired revocations", purged);
+    }
+}
@@ -0,0 +1,10 @@
+-- Schema as previously generated by Hibernate (database.generation=update) from User.
+create table if not exists users (
+    id               binary(16)   not null,
+    password         varchar(255) not null,
+    reset_code       varchar(255),
+    telephone_number varchar(255) not null,
+    username         varchar(255) not null,
+    primary key (id),
+    constraint uk_users_username unique (username)
+) engine = InnoDB;
@@ -0,0 +1,2 @@
+-- Reset codes are stateless HMAC tokens now (ResetTokenService) and no longer stored.
+alter table users drop column reset_code;
@@ -0,0 +1,13 @@
+create table refresh_tokens (
+    id          binary(16)   not null,
+    token_hash  binary(32)   not null,
+    family_id   binary(16)   not null,
+    username    varchar(255) not null,
+    expires_at  bigint       not null,
+    used        bit          not null,
+    primary key (id),
+    constraint uk_refresh_tokens_hash unique (token_hash),
+    index ix_refresh_tokens_family (family_id),
+    index ix_refresh_tokens_username (username),
+    index ix_refresh_tokens_expires (expires_at)
+) engine = InnoDB;
@@ -0,0 +1,9 @@
+create table revoked_tokens (
+    jti         varchar(32)  not null,
+    username    varchar(255) not null,
+    expires_at  bigint       not null,
+    revoked_at  bigint       not null,
+    primary key (jti),
+    index ix_revoked_tokens_revoked (revoked_at),
+    index ix_revoked_tokens_expires (expires_at)
+) engine = InnoDB;
@@ -0,0 +1,24 @@
+-- Databases that Hibernate created before the unique username constraint existed were baselined as version 1
+-- without it, so V1 never ran there. Make usernames unique and add uk_users_username where it is missing.
+
+-- Refresh tokens only name the user, so those of duplicated usernames cannot tell the accounts apart: drop them,
+-- the affected users log in again.
+delete r from refresh_tokens r
+    join (select username from users group by username having count(*) > 1) duplicated
+        on duplicated.username = r.username;
+
+-- Keep one account per username (the lowest id) and rename the others instead of deleting them, so they can be
+-- resolved by hand. The renamed usernames still look like email addresses, so the accounts are also disabled: the
+-- '!' in front of the password hash makes every verification fail, and removing it restores the account.
+update users u
+    join (select username, min(id) as kept_id from users group by username having count(*) > 1) duplicated
+        on duplicated.username = u.username and u.id <> duplicated.kept_id
+set u.username = concat(left(u.username, 200), '#duplicate-', hex(u.id)),
+    u.password = concat('!', u.password);
+
+set @missing = (select count(*) = 0 from information_schema.table_constraints
+                where table_schema = database() and table_name = 'users' and constraint_name = 'uk_users_username');
+set @ddl = if(@missing, 'alter table users add constraint uk_users_username unique (username)', 'do 0');
+prepare add_constraint from @ddl;
+execute add_constraint;
+deallocate prepare add_constraint;
@@ -0,0 +1,80 @@
+package at.htlleonding;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements each write operation sends, using Hibernate statistics.
+ */
+@QuarkusTest
+public class LoginPanacheRepositoryTest {
+    private static final String USERNAME = "statements@gmail.com";
+
+    @Inject
+    LoginPanacheRepository loginRepo;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = sessionFactory.getStatistics();
+        QuarkusTransaction.requiringNew().run(() -> loginRepo.deleteUserByName(USERNAME));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() -> loginRepo.deleteUserByName(USERNAME));
+    }
+
+    private long statementsFor(Runnable operation) {
+        statistics.clear();
+        QuarkusTransaction.requiringNew().run(operation);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User insertUser() {
+        User user = new User(USERNAME, "hash", "+123456789");
+        QuarkusTransaction.requiringNew().run(() -> loginRepo.addUser(user));
+        return user;
+    }
+
+    @Test
+    @DisplayName("addUser should issue a single INSERT")
+    void testAddUser_SingleStatement() {
+        assertEquals(1, statementsFor(() -> loginRepo.addUser(new User(USERNAME, "hash", "+123456789"))));
+    }
+
+    @Test
+    @DisplayName("deleteUserByName should issue a single DELETE")
+    void testDeleteUserByName_SingleStatement() {
+        insertUser();
+        assertEquals(1, statementsFor(() -> assertEquals(1, loginRepo.deleteUserByName(USERNAME))));
+    }
+
+    @Test
+    @DisplayName("updatePassword should issue a single UPDATE")
+    void testUpdatePassword_SingleStatement() {
+        User user = insertUser();
+        assertEquals(1, statementsFor(() -> assertEquals(1, loginRepo.updatePassword(user.getId(), "newHash"))));
+    }
+
+    @Test
+    @DisplayName("replacePassword should issue a single UPDATE that only matches the expected hash")
+    void testReplacePassword_SingleStatement() {
+        User user = insertUser();
+        assertEquals(1, statementsFor(() -> assertEquals(0, loginRepo.replacePassword(user.getId(), "otherHash", "newHash"))));
+        assertEquals(1, statementsFor(() -> assertEquals(1, loginRepo.replacePassword(user.getId(), "hash", "newHash"))));
+    }
+}
@@ -1,11 +1,13 @@
 package at.htlleonding;
 
 import at.htlleonding.dtos.LoginDto;
+import at.htlleonding.dtos.RefreshTokenDto;
 import at.htlleonding.dtos.RegisterDto;
 import at.htlleonding.dtos.ResetPasswordDto;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.response.Response;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -59,6 +61,153 @@ public class LoginResourceTest {
         loginService.deleteUserByName(testUser.getUsername());
     }
 
+    @Test
+    void testRefreshRotatesToken() {
+        loginService.addUser(testUser);
+
+        String refreshToken = RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(testUser.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(200)
+                .body("expiresIn", equalTo(1800))
+                .extract().path("refreshToken");
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new RefreshTokenDto(refreshToken))
+                .when()
+                .post("/api/v1/token/refresh")
+                .then()
+                .statusCode(200)
+                .header("Authorization", startsWith("Bearer"))
+                .body("refreshToken", not(equalTo(refreshToken)));
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new RefreshTokenDto(refreshToken))
+                .when()
+                .post("/api/v1/token/refresh")
+                .then()
+                .statusCode(401);
+        loginService.deleteUserByName(testUser.getUsername());
+    }
+
+    @Test
+    void testLogoutRevokesAccessToken() {
+        loginService.addUser(testUser);
+
+        Response login = RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(testUser.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login");
+        String authorization = login.header("Authorization");
+        String refreshToken = login.path("refreshToken");
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", authorization)
+                .body(new RefreshTokenDto(refreshToken))
+                .when()
+                .post("/api/v1/logout")
+                .then()
+                .statusCode(204);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", authorization)
+                .body(new RefreshTokenDto(refreshToken))
+                .when()
+                .post("/api/v1/logout")
+                .then()
+                .statusCode(401);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new RefreshTokenDto(refreshToken))
+                .when()
+                .post("/api/v1/token/refresh")
+                .then()
+                .statusCode(401);
+        loginService.deleteUserByName(testUser.getUsername());
+    }
+
+    @Test
+    void testBulkRegisterRequiresAdmin() {
+        loginService.addUser(testUser);
+        String authorization = RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(testUser.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login")
+                .header("Authorization");
+
+        RestAssured.given()
+                .contentType(LoginResource.NDJSON)
+                .accept(LoginResource.NDJSON)
+                .header("Authorization", authorization)
+                .body("{\"username\":\"bulk@gmail.com\",\"password\":\"password123\",\"telephoneNumber\":\"+123456789\"}\n")
+                .when()
+                .post("/api/v1/register/bulk")
+                .then()
+                .statusCode(403);
+        loginService.deleteUserByName(testUser.getUsername());
+    }
+
+    @Test
+    void testBulkRegisterAsAdmin() {
+        User admin = new User("admin@gmail.com", "password123", "+123456789");
+        loginService.addUser(admin);
+        String authorization = RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(admin.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login")
+                .header("Authorization");
+
+        RestAssured.given()
+                .contentType(LoginResource.NDJSON)
+                .accept(LoginResource.NDJSON)
+                .header("Authorization", authorization)
+                .body("{\"username\":\"bulk@gmail.com\",\"password\":\"password123\",\"telephoneNumber\":\"+123456789\"}\n")
+                .when()
+                .post("/api/v1/register/bulk")
+                .then()
+                .statusCode(200)
+                .body(containsString("\"created\""));
+        loginService.deleteUserByName("bulk@gmail.com");
+        loginService.deleteUserByName(admin.getUsername());
+    }
+
+    @Test
+    void testBulkRegisterNullRecord() {
+        User admin = new User("admin@gmail.com", "password123", "+123456789");
+        loginService.addUser(admin);
+        String authorization = RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(admin.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login")
+                .header("Authorization");
+
+        RestAssured.given()
+                .contentType(LoginResource.NDJSON)
+                .accept(LoginResource.NDJSON)
+                .header("Authorization", authorization)
+                .body("null\n{\"username\":\"bulk@gmail.com\",\"password\":\"password123\",\"telephoneNumber\":\"+123456789\"}\n")
+                .when()
+                .post("/api/v1/register/bulk")
+                .then()
+                .statusCode(200)
+                .body(containsString("Malformed record"))
+                .body(containsString("\"created\""));
+        loginService.deleteUserByName("bulk@gmail.com");
+        loginService.deleteUserByName(admin.getUsername());
+    }
+
     @Test
     void testLoginFailureInvalidPassword() {
         loginService.addUser(testUser);
@@ -73,6 +222,68 @@ public class LoginResourceTest {
 
     }
 
+    @Test
+    void testLoginWithoutBody() {
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(400);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body("{\"password\":\"password123\"}")
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testRefreshAndRevokeWithoutBody() {
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/api/v1/token/refresh")
+                .then()
+                .statusCode(400);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/api/v1/token/revoke")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testLoginIgnoresForwardedForFromUntrustedPeer() {
+        User user = new User("spoofed@gmail.com", "password123", "+123456789");
+        loginService.addUser(user);
+
+        // loopback is not a trusted proxy in the test profile, so every attempt counts for the same address
+        for (int i = 0; i < 5; i++) {
+            RestAssured.given()
+                    .contentType(ContentType.JSON)
+                    .header("X-Forwarded-For", "198.51.100." + i)
+                    .body(new LoginDto(user.getUsername(), "wrongpassword"))
+                    .when()
+                    .post("/api/v1/login")
+                    .then()
+                    .statusCode(400);
+        }
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .header("X-Forwarded-For", "198.51.100.99")
+                .body(new LoginDto(user.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(429);
+        loginService.deleteUserByName(user.getUsername());
+    }
+
     @Test
     void testResetPassword() {
         loginService.addUser(testUser);
@@ -100,4 +311,45 @@ public class LoginResourceTest {
         loginService.deleteUserByName(testUser.getUsername());
 
     }
+
+    @Test
+    void testResetPasswordWithCodeWithoutUsername() {
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new ResetPasswordDto(null, "resetCode", "newPassword"))
+                .when()
+                .post("/api/v1/resetpw/code/")
+                .then()
+                .statusCode(400);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/api/v1/resetpw/code/")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void testMetricsExposeLoginStages() {
+        loginService.addUser(testUser);
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(testUser.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(200);
+
+        RestAssured.given()
+                .when()
+                .get("/q/metrics")
+                .then()
+                .statusCode(200)
+                .body(containsString("login_duration_seconds_bucket{outcome=\"success\",stage=\"request\""))
+                .body(containsString("stage=\"deserialize\""))
+                .body(containsString("stage=\"sign\""));
+        loginService.deleteUserByName(testUser.getUsername());
+    }
 }
@@ -0,0 +1,74 @@
+package at.htlleonding;
+
+import at.htlleonding.dtos.LoginDto;
+import at.htlleonding.token.RefreshTokenService;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+public class LoginResourceTokenIssueTest {
+    static final User testUser = new User("issue@gmail.com", "password123", "+123456789");
+
+    @InjectMock
+    RefreshTokenService refreshTokens;
+
+    @Inject
+    LoginService loginService;
+
+    @BeforeEach
+    public void setUp() {
+        loginService.addUser(new User(testUser.getUsername(), testUser.getPassword(), testUser.getTelephoneNumber()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loginService.deleteUserByName(testUser.getUsername());
+    }
+
+    @Test
+    @DisplayName("Should issue the refresh token off the hashing pool")
+    void testLogin_IssuesOffHashingPool() {
+        AtomicReference<String> issueThread = new AtomicReference<>();
+        when(refreshTokens.issue(anyString())).thenAnswer(invocation -> {
+            issueThread.set(Thread.currentThread().getName());
+            return "refresh-token";
+        });
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(testUser.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(200);
+        assertNotNull(issueThread.get());
+        assertFalse(issueThread.get().startsWith("argon2-hash-"), issueThread.get());
+    }
+
+    @Test
+    @DisplayName("Should answer 500, not 401, when the refresh token cannot be stored")
+    void testLogin_IssueFails() {
+        when(refreshTokens.issue(anyString())).thenThrow(new IllegalStateException("database down"));
+
+        RestAssured.given()
+                .contentType(ContentType.JSON)
+                .body(new LoginDto(testUser.getUsername(), "password123"))
+                .when()
+                .post("/api/v1/login")
+                .then()
+                .statusCode(500);
+    }
+}
@@ -1,5 +1,7 @@
 package at.htlleonding;
 
+import at.htlleonding.metrics.LoginMetrics;
+import at.htlleonding.token.RefreshTokenService;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
@@ -10,6 +12,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.wildfly.common.Assert.assertNotNull;
@@ -20,18 +24,27 @@ public class LoginServiceTest {
     @InjectMock
     LoginPanacheRepository loginRepo;
 
+    @InjectMock
+    RefreshTokenService refreshTokens;
+
     @Inject
     LoginService loginService;
 
-    private static User sampleUser;
+    @Inject
+    CredentialManager credentialManager;
+
+    @Inject
+    UserCredentialCache credentialCache;
 
-    private static User sampleUserWithCode;
+    @Inject
+    LoginMetrics metrics;
+
+    private static User sampleUser;
 
     @BeforeEach
     public void setUpAll() {
+        credentialCache.invalidateAll();
         sampleUser = new User("testUser", loginService.encryptPassword("secret"), "12345");
-        sampleUserWithCode = new User("testUser2", loginService.encryptPassword("secret"), "12345");
-        sampleUserWithCode.setResetCode("resetCode");
     }
     @Nested
     @DisplayName("getUserById tests")
@@ -68,6 +81,21 @@ public class LoginServiceTest {
             verify(loginRepo).addUser(any(User.class));
         }
 
+        @Test
+        @DisplayName("Should insert asynchronously off the hashing pool")
+        void testAddUserAsync_InsertsOffHashingPool() {
+            AtomicReference<String> insertThread = new AtomicReference<>();
+            doAnswer(invocation -> {
+                insertThread.set(Thread.currentThread().getName());
+                return null;
+            }).when(loginRepo).addUser(any(User.class));
+
+            loginService.addUserAsync(sampleUser).toCompletableFuture().join();
+
+            assertNotNull(insertThread.get());
+            assertFalse(insertThread.get().startsWith("argon2-hash-"), insertThread.get());
+        }
+
         @Test
         @DisplayName("Should throw exception when password is empty")
         void testAddUser_EmptyPassword() {
@@ -124,6 +152,50 @@ public class LoginServiceTest {
             boolean result = loginService.checkPassword("testUser", "wrongPassword");
             assertFalse(result);
         }
+
+        @Test
+        @DisplayName("Should time the lookup and the failed verification by outcome")
+        void testCheckPassword_RecordsMetrics() {
+            sampleUser.setPassword(loginService.encryptPassword("secret"));
+            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
+            long lookups = metrics.timer(LoginMetrics.Stage.LOOKUP, LoginMetrics.Outcome.SUCCESS).count();
+            long badPasswords = metrics.timer(LoginMetrics.Stage.VERIFY, LoginMetrics.Outcome.BAD_PASSWORD).count();
+
+            loginService.checkPassword("testUser", "wrongPassword");
+
+            assertEquals(lookups + 1, metrics.timer(LoginMetrics.Stage.LOOKUP, LoginMetrics.Outcome.SUCCESS).count());
+            assertEquals(badPasswords + 1, metrics.timer(LoginMetrics.Stage.VERIFY, LoginMetrics.Outcome.BAD_PASSWORD).count());
+        }
+
+        @Test
+        @DisplayName("Should rehash when the stored hash uses outdated parameters")
+        void testCheckPassword_Rehash() {
+            String outdated = LoginService.Argon2Singleton.getInstance()
+                    .hash(1, 65536, 1, ("secret" + credentialManager.getPepper()).toCharArray());
+            sampleUser.setPassword(outdated);
+            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
+
+            assertTrue(loginService.checkPassword("testUser", "secret"));
+            verify(loginRepo).updatePassword(any(), argThat(hash -> !hash.equals(outdated)));
+        }
+
+        @Test
+        @DisplayName("Should store an asynchronous rehash off the hashing pool")
+        void testCheckPasswordAsync_RehashOffHashingPool() {
+            String outdated = LoginService.Argon2Singleton.getInstance()
+                    .hash(1, 65536, 1, ("secret" + credentialManager.getPepper()).toCharArray());
+            sampleUser.setPassword(outdated);
+            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
+            AtomicReference<String> updateThread = new AtomicReference<>();
+            doAnswer(invocation -> {
+                updateThread.set(Thread.currentThread().getName());
+                return 1;
+            }).when(loginRepo).updatePassword(any(), anyString());
+
+            assertTrue(loginService.checkPasswordAsync("testUser", "secret").toCompletableFuture().join());
+            assertNotNull(updateThread.get());
+            assertFalse(updateThread.get().startsWith("argon2-hash-"), updateThread.get());
+        }
     }
 
     @Nested
@@ -138,36 +210,74 @@ public class LoginServiceTest {
         }
 
         @Test
-        @DisplayName("Should return reset code when user found")
+        @DisplayName("Should return reset code when user found without writing to the database")
         void testResetPassword_Success() {
             when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
 
             String resetCode = loginService.resetPassword("testUser");
             assertNotNull(resetCode);
-            assertEquals(sampleUser.getResetCode(), resetCode);
+            verify(loginRepo).findByUsername("testUser");
+            verifyNoMoreInteractions(loginRepo);
         }
 
         @Test
-        @DisplayName("Should throw exception when user has no reset code")
-        void testResetPassword_NoResetCode() {
-            sampleUser.setResetCode(null);
-            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
+        @DisplayName("Should throw exception when user not found for reset code")
+        void testResetPasswordWithCode_UserNotFound() {
+            when(loginRepo.findByUsername("notExistingUser")).thenReturn(null);
+            assertThrows(IllegalArgumentException.class,
+                    () -> loginService.resetPasswordWithCode("notExistingUser", "resetCode", "newPassword"));
+        }
+
+        @Test
+        @DisplayName("Should throw exception when no username is given, without a cache lookup")
+        void testResetPassword_MissingUsername() {
+            assertThrows(IllegalArgumentException.class, () -> loginService.resetPassword(""));
             assertThrows(IllegalArgumentException.class,
-                    () -> loginService.resetPasswordWithCode("testUser", "resetCode", "newPassword"));
+                    () -> loginService.resetPasswordWithCode(null, "resetCode", "newPassword"));
+            verifyNoInteractions(loginRepo);
         }
 
         @Test
-        @DisplayName("Should throw exception when invalid reset code")
+        @DisplayName("Should return false when invalid reset code")
         void testResetPasswordWithCode_InvalidCode() {
-            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUserWithCode);
+            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
             assertFalse(loginService.resetPasswordWithCode("testUser", "invalidCode", "newPassword"));
         }
 
         @Test
         @DisplayName("Should reset password successfully with valid reset code")
         void testResetPasswordWithCode_Success() {
-            when(loginRepo.findByUsername("testUser2")).thenReturn(sampleUserWithCode);
-            assertTrue(loginService.resetPasswordWithCode("testUser2", "resetCode", "newPassword"));
+            String oldHash = sampleUser.getPassword();
+            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
+            when(loginRepo.replacePassword(any(), eq(oldHash), anyString())).thenReturn(1);
+            String resetCode = loginService.resetPassword("testUser");
+
+            assertTrue(loginService.resetPasswordWithCode("testUser", resetCode, "newPassword"));
+            verify(loginRepo).replacePassword(any(), eq(oldHash), argThat(hash -> !hash.equals(oldHash)));
+            verify(refreshTokens).revokeAll("testUser");
+        }
+
+        @Test
+        @DisplayName("Should reject a reset code once the password has changed")
+        void testResetPasswordWithCode_PasswordChanged() {
+            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
+            String resetCode = loginService.resetPassword("testUser");
+
+            sampleUser.setPassword(loginService.encryptPassword("changed"));
+            credentialCache.invalidateAll();
+
+            assertFalse(loginService.resetPasswordWithCode("testUser", resetCode, "newPassword"));
+            verify(loginRepo, never()).replacePassword(any(), anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Should fail when the password was changed while hashing")
+        void testResetPasswordWithCode_ChangedConcurrently() {
+            when(loginRepo.findByUsername("testUser")).thenReturn(sampleUser);
+            when(loginRepo.replacePassword(any(), anyString(), anyString())).thenReturn(0);
+            String resetCode = loginService.resetPassword("testUser");
+
+            assertFalse(loginService.resetPasswordWithCode("testUser", resetCode, "newPassword"));
         }
     }
 
@@ -0,0 +1,64 @@
+package at.htlleonding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResetTokenServiceTest {
+    private static final UserCredentials USER = new UserCredentials(UUID.randomUUID(), "test@gmail.com", "$argon2id$hash-1");
+
+    private ResetTokenService resetTokens;
+
+    @BeforeEach
+    public void setUp() {
+        CredentialManager credentialManager = new CredentialManager();
+        credentialManager.secret = "test-secret";
+        resetTokens = new ResetTokenService();
+        resetTokens.ttl = Duration.ofMinutes(15);
+        resetTokens.credentialManager = credentialManager;
+        resetTokens.init();
+    }
+
+    @Test
+    @DisplayName("Should accept a fresh code for the same credentials")
+    void testIsValid_Fresh() {
+        assertTrue(resetTokens.isValid(USER, resetTokens.issue(USER)));
+    }
+
+    @Test
+    @DisplayName("Should reject an expired code")
+    void testIsValid_Expired() {
+        String code = resetTokens.issue(USER, System.currentTimeMillis() / 1000 - 1);
+        assertFalse(resetTokens.isValid(USER, code));
+    }
+
+    @Test
+    @DisplayName("Should reject a code after the password hash changed")
+    void testIsValid_PasswordChanged() {
+        String code = resetTokens.issue(USER);
+        assertFalse(resetTokens.isValid(new UserCredentials(USER.id(), USER.username(), "$argon2id$hash-2"), code));
+    }
+
+    @Test
+    @DisplayName("Should reject a code issued for another user")
+    void testIsValid_OtherUser() {
+        String code = resetTokens.issue(USER);
+        assertFalse(resetTokens.isValid(new UserCredentials(USER.id(), "other@gmail.com", USER.passwordHash()), code));
+    }
+
+    @Test
+    @DisplayName("Should reject tampered and malformed codes")
+    void testIsValid_Tampered() {
+        String code = resetTokens.issue(USER);
+        String extended = resetTokens.issue(USER, System.currentTimeMillis() / 1000 + 86400);
+        String forged = extended.substring(0, 11) + code.substring(11);
+        assertFalse(resetTokens.isValid(USER, forged));
+        assertFalse(resetTokens.isValid(USER, "not a code"));
+        assertFalse(resetTokens.isValid(USER, null));
+    }
+}
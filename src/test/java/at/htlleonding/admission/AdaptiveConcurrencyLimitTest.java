@@ -0,0 +1,90 @@
+package at.htlleonding.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimitTest {
+    private static final long MILLIS = 1_000_000L;
+
+    /**
+     * Fills the limit with prioritised requests and completes them all with {@code rttNanos}, {@code rounds} times.
+     */
+    private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (limit.tryAcquire(true)) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limit.release(rttNanos);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should raise the limit while latency stays flat under full load")
+    void testRelease_FlatLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 200, 0.2);
+        saturate(limit, 10 * MILLIS, 20);
+        assertTrue(limit.getLimit() > 20, "limit: " + limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should lower the limit when latency rises, but not below the minimum")
+    void testRelease_RisingLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 200, 0.2);
+        saturate(limit, 10 * MILLIS, 10);
+        int beforeStorm = limit.getLimit();
+
+        saturate(limit, 80 * MILLIS, 5);
+        assertTrue(limit.getLimit() < beforeStorm, beforeStorm + " -> " + limit.getLimit());
+
+        saturate(limit, 80 * MILLIS, 200);
+        assertTrue(limit.getLimit() >= 4);
+    }
+
+    @Test
+    @DisplayName("Should not learn from samples taken far below the limit")
+    void testRelease_AppLimited() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 200, 0.2);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire(false));
+            limit.release(10 * MILLIS);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should keep the reserve for prioritised requests")
+    void testTryAcquire_Reserve() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 200, 0.2);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limit.tryAcquire(false));
+        }
+        assertFalse(limit.tryAcquire(false));
+        assertTrue(limit.tryAcquire(true));
+        assertTrue(limit.tryAcquire(true));
+        assertFalse(limit.tryAcquire(true));
+
+        limit.releaseIgnored();
+        assertFalse(limit.tryAcquire(false));
+        assertTrue(limit.tryAcquire(true));
+    }
+
+    @Test
+    @DisplayName("Should back off multiplicatively on drops")
+    void testReleaseDropped() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 200, 0.2);
+        assertTrue(limit.tryAcquire(false));
+        limit.releaseDropped();
+        assertEquals(18, limit.getLimit());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limit.tryAcquire(true));
+            limit.releaseDropped();
+        }
+        assertEquals(4, limit.getLimit());
+    }
+}
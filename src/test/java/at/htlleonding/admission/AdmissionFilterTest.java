@@ -0,0 +1,36 @@
+package at.htlleonding.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class AdmissionFilterTest {
+
+    @Inject
+    MeterRegistry registry;
+
+    private static void fail() {
+        RestAssured.given()
+                .when()
+                .post("/test/admission/fail")
+                .then()
+                .statusCode(500);
+    }
+
+    @Test
+    @DisplayName("Should release the slot when the resource throws an unmapped exception")
+    void testUnmappedException_ReleasesPermit() {
+        fail();
+        int attempts = 3 * (int) registry.get("login.admission.limit").gauge().value() + 1;
+        for (int i = 0; i < attempts; i++) {
+            fail();
+        }
+        assertEquals(0.0, registry.get("login.admission.in-flight").gauge().value());
+    }
+}
@@ -0,0 +1,15 @@
+package at.htlleonding.admission;
+
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+
+@Path("/test/admission")
+public class FailingResource {
+
+    @POST
+    @Path("/fail")
+    @AdmissionControlled
+    public String fail() {
+        throw new IllegalStateException("resource failed");
+    }
+}
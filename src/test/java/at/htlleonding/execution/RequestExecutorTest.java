@@ -0,0 +1,61 @@
+package at.htlleonding.execution;
+
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class RequestExecutorTest {
+    private RequestExecutor executor;
+
+    private RequestExecutor start(ExecutionMode mode) {
+        executor = new RequestExecutor();
+        executor.mode = mode;
+        executor.managedExecutor = mock(ManagedExecutor.class);
+        executor.init();
+        return executor;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should run tasks inline in worker mode")
+    void testSupply_Worker() {
+        Thread caller = Thread.currentThread();
+        Thread runner = start(ExecutionMode.WORKER).supply(Thread::currentThread).toCompletableFuture().join();
+        assertSame(caller, runner);
+    }
+
+    @Test
+    @DisplayName("Should run tasks on virtual threads in virtual mode")
+    void testSupply_Virtual() {
+        Thread runner = start(ExecutionMode.VIRTUAL).supply(Thread::currentThread).toCompletableFuture().join();
+        assertTrue(runner.isVirtual());
+    }
+
+    @Test
+    @DisplayName("Should run blocking continuations on the pooled executor in virtual mode")
+    void testBlockingExecutor_Virtual() {
+        RequestExecutor virtual = start(ExecutionMode.VIRTUAL);
+        assertSame(virtual.managedExecutor, virtual.blockingExecutor());
+    }
+
+    @Test
+    @DisplayName("Should complete the stage exceptionally instead of throwing")
+    void testSupply_Failure() {
+        CompletableFuture<Object> result = start(ExecutionMode.WORKER).supply(() -> {
+            throw new IllegalArgumentException("User not found!");
+        }).toCompletableFuture();
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+}
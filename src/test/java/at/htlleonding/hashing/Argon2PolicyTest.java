@@ -0,0 +1,41 @@
+package at.htlleonding.hashing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Argon2PolicyTest {
+    private Argon2Policy policy;
+
+    @BeforeEach
+    public void setUp() {
+        policy = new Argon2Policy();
+        policy.iterations = 2;
+        policy.memoryKb = 65536;
+        policy.parallelism = 1;
+    }
+
+    @Test
+    @DisplayName("Should rehash hashes with fewer iterations or less memory")
+    void testNeedsRehash_Weaker() {
+        assertTrue(policy.needsRehash("$argon2i$v=19$m=65536,t=1,p=1$c2FsdA$aGFzaA"));
+        assertTrue(policy.needsRehash("$argon2i$v=19$m=32768,t=2,p=1$c2FsdA$aGFzaA"));
+    }
+
+    @Test
+    @DisplayName("Should keep hashes with the same or a higher cost")
+    void testNeedsRehash_SameOrStronger() {
+        assertFalse(policy.needsRehash("$argon2i$v=19$m=65536,t=2,p=1$c2FsdA$aGFzaA"));
+        assertFalse(policy.needsRehash("$argon2i$v=19$m=65536,t=3,p=1$c2FsdA$aGFzaA"));
+        assertFalse(policy.needsRehash("$argon2i$v=19$m=131072,t=2,p=2$c2FsdA$aGFzaA"));
+    }
+
+    @Test
+    @DisplayName("Should rehash hashes whose parameters cannot be read")
+    void testNeedsRehash_Unreadable() {
+        assertTrue(policy.needsRehash("not-a-hash"));
+        assertTrue(policy.needsRehash("$argon2i$v=19$m=abc,t=2,p=1$c2FsdA$aGFzaA"));
+    }
+}
@@ -0,0 +1,89 @@
+package at.htlleonding.jwt;
+
+import at.htlleonding.keys.TestKeyRings;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JWTServiceTest {
+    private static JWTService jwtService(String algorithm) {
+        JWTService jwtService = new JWTService();
+        jwtService.keyRing = TestKeyRings.configured(algorithm);
+        return jwtService;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"HS256", "ES256", "EdDSA"})
+    @DisplayName("Should verify its own tokens and reject tampered signatures")
+    void testRoundTrip(String algorithm) {
+        JWTService jwtService = jwtService(algorithm);
+        String token = jwtService.generateToken("test@gmail.com", 30);
+
+        VerifiedToken verified = jwtService.verify(token, 0);
+        assertNotNull(verified);
+        assertEquals("test@gmail.com", verified.username());
+        assertNotNull(verified.jti());
+
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char flipped = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signatureStart) + flipped + token.substring(signatureStart + 1);
+        assertNull(jwtService.verify(tampered, 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"test@gmail.com", "quo\"te\\back", "tab\tnew\nline\u0001", "J\u00fcrgen M\u00fcller", "\u540d\u524d", "emoji \uD83D\uDE00"})
+    @DisplayName("Should write escaped claims that read back to the same username")
+    void testGenerateToken_Claims(String username) {
+        JWTService jwtService = jwtService("HS256");
+        long before = System.currentTimeMillis() / 1000;
+        String token = jwtService.generateToken(username, 30);
+
+        String[] segments = token.split("\\.");
+        assertEquals(3, segments.length);
+        String payload = new String(Base64.getUrlDecoder().decode(segments[1]), StandardCharsets.UTF_8);
+        assertTrue(payload.matches("\\{\"username\":\".*\",\"exp\":\\d+,\"iat\":\\d+,\"jti\":\"[A-Za-z0-9_-]{22}\"}"), payload);
+
+        VerifiedToken verified = jwtService.verify(token, 0);
+        assertNotNull(verified);
+        assertEquals(username, verified.username());
+        assertTrue(verified.expiresAt() >= before + 30 * 60 && verified.expiresAt() <= before + 30 * 60 + 1);
+    }
+
+    @Test
+    @DisplayName("Should issue a fresh jti per token")
+    void testGenerateToken_UniqueJti() {
+        JWTService jwtService = jwtService("HS256");
+        String first = jwtService.verify(jwtService.generateToken("test@gmail.com", 30), 0).jti();
+        String second = jwtService.verify(jwtService.generateToken("test@gmail.com", 30), 0).jti();
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("Should reject tokens whose header names another key")
+    void testVerify_OtherKey() {
+        String foreign = jwtService("ES256").generateToken("test@gmail.com", 30);
+        assertNull(jwtService("ES256").verify(foreign, 0));
+        assertNull(jwtService("HS256").verify(foreign, 0));
+    }
+
+    @Test
+    @DisplayName("Should publish the public key with the kid used in the token header")
+    void testPublicKeys() {
+        assertTrue(jwtService("HS256").publicKeys().isEmpty());
+
+        JWTService jwtService = jwtService("ES256");
+        Map<String, String> jwk = jwtService.publicKeys().get(0);
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals("ES256", jwk.get("alg"));
+        String token = jwtService.generateToken("test@gmail.com", 30);
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        assertTrue(header.contains("\"kid\":\"" + jwk.get("kid") + "\""));
+    }
+}
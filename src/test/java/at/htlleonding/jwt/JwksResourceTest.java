@@ -0,0 +1,29 @@
+package at.htlleonding.jwt;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+public class JwksResourceTest {
+    @Test
+    void testJwksIsCacheable() {
+        String etag = RestAssured.given()
+                .when()
+                .get("/.well-known/jwks.json")
+                .then()
+                .statusCode(200)
+                .header("Cache-Control", containsString("max-age=300"))
+                .body("keys", notNullValue())
+                .extract().header("ETag");
+
+        RestAssured.given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/.well-known/jwks.json")
+                .then()
+                .statusCode(304);
+    }
+}
@@ -0,0 +1,79 @@
+package at.htlleonding.jwt;
+
+import at.htlleonding.keys.TestKeyRings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTest {
+    private static final String BEARER = "Bearer ";
+
+    private VerifiedTokenCache cache;
+    private JWTService jwtService;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new VerifiedTokenCache();
+        cache.size = 1024;
+        cache.registry = new SimpleMeterRegistry();
+        cache.init();
+        jwtService = new JWTService();
+        jwtService.keyRing = TestKeyRings.configured("HS256");
+    }
+
+    private static VerifiedToken claims(long expiresInSeconds) {
+        return new VerifiedToken("test@gmail.com", System.currentTimeMillis() / 1000 + expiresInSeconds, "jti");
+    }
+
+    @Test
+    @DisplayName("Should return the cached claims for the same token behind the Bearer prefix")
+    void testGet_Hit() {
+        String token = jwtService.generateToken("test@gmail.com", 30);
+        VerifiedToken claims = claims(60);
+        cache.put(BEARER + token, BEARER.length(), claims, 1);
+
+        assertSame(claims, cache.get(BEARER + token, BEARER.length(), 1));
+        assertSame(claims, cache.get(token, 0, 1));
+    }
+
+    @Test
+    @DisplayName("Should miss for a token that differs from the cached one")
+    void testGet_OtherToken() {
+        String token = jwtService.generateToken("test@gmail.com", 30);
+        cache.put(token, 0, claims(60), 1);
+
+        assertNull(cache.get(token + "A", 0, 1));
+        assertNull(cache.get(token.substring(0, token.length() - 1), 0, 1));
+        assertNull(cache.get(jwtService.generateToken("test@gmail.com", 30), 0, 1));
+    }
+
+    @Test
+    @DisplayName("Should drop an entry once the token has expired")
+    void testGet_Expired() {
+        String token = jwtService.generateToken("test@gmail.com", 30);
+        cache.put(token, 0, claims(0), 1);
+
+        assertNull(cache.get(token, 0, 1));
+        assertEquals(1.0, cache.registry.get("jwt.cache.evictions").tag("cause", "expired").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should drop entries verified with an older key generation")
+    void testGet_KeyGenerationChanged() {
+        String token = jwtService.generateToken("test@gmail.com", 30);
+        cache.put(token, 0, claims(60), 1);
+
+        assertNull(cache.get(token, 0, 2));
+        assertNull(cache.get(token, 0, 1));
+    }
+
+    @Test
+    @DisplayName("Should not cache strings without a signature segment")
+    void testPut_NoSignature() {
+        cache.put("not-a-token", 0, claims(60), 1);
+        assertNull(cache.get("not-a-token", 0, 1));
+    }
+}
@@ -0,0 +1,126 @@
+package at.htlleonding.keys;
+
+import at.htlleonding.jwt.AsymmetricTokenSigner;
+import at.htlleonding.jwt.HmacTokenSigner;
+import at.htlleonding.jwt.TokenSigner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyRingTest {
+    @TempDir
+    Path directory;
+
+    private Path ringFile;
+    private KeyRing keyRing;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        KeyPair retired = AsymmetricTokenSigner.generateKeyPair(AsymmetricTokenSigner.EDDSA);
+        writePem(directory.resolve("2025-04-public.pem"), "PUBLIC KEY", retired.getPublic());
+        KeyPair active = AsymmetricTokenSigner.generateKeyPair(AsymmetricTokenSigner.EDDSA);
+        writePem(directory.resolve("2025-10-private.pem"), "PRIVATE KEY", active.getPrivate());
+        writePem(directory.resolve("2025-10-public.pem"), "PUBLIC KEY", active.getPublic());
+
+        ringFile = directory.resolve("keyring.properties");
+        Files.writeString(ringFile, """
+                pepper.active=2
+                pepper.1=first-pepper
+                pepper.2=second-pepper
+                jwt.active=2025-10
+                jwt.2025-10.algorithm=EdDSA
+                jwt.2025-10.private-key=2025-10-private.pem
+                jwt.2025-10.public-key=2025-10-public.pem
+                jwt.2025-04.algorithm=EdDSA
+                jwt.2025-04.public-key=2025-04-public.pem
+                jwt.hs256.algorithm=HS256
+                jwt.hs256.secret=legacy-secret
+                """);
+        keyRing = TestKeyRings.file(ringFile);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        keyRing.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should load active and retired entries from the ring file")
+    void testLoad() {
+        Keys keys = keyRing.keys();
+        assertEquals(2, keys.activePepperVersion());
+        assertEquals("second-pepper", keys.activePepper());
+        assertEquals("first-pepper", keys.pepper(1));
+        assertNull(keys.pepper(3));
+        assertEquals("2025-10", keys.activeSigner().kid());
+        assertEquals(2, keys.publicKeys().size());
+    }
+
+    @Test
+    @DisplayName("Should find each key by the header it signs with, including the legacy HS256 header")
+    void testSignerFor() {
+        Keys keys = keyRing.keys();
+        for (String kid : new String[]{"2025-10", "2025-04", "hs256"}) {
+            String token = "x." + TokenSigner.encodeHeader(kid.equals("hs256") ? "HS256" : "EdDSA", kid) + ".payload";
+            TokenSigner signer = keys.signerFor(token, 2, token.lastIndexOf('.'));
+            assertNotNull(signer, kid);
+            assertEquals(kid, signer.kid());
+        }
+        String legacy = HmacTokenSigner.LEGACY_HEADER + ".payload";
+        assertEquals("hs256", keys.signerFor(legacy, 0, legacy.indexOf('.')).kid());
+
+        String unknown = TokenSigner.encodeHeader("EdDSA", "2024-01");
+        assertNull(keys.signerFor(unknown, 0, unknown.length()));
+        String algorithmSwap = TokenSigner.encodeHeader("HS256", "2025-10");
+        assertNull(keys.signerFor(algorithmSwap, 0, algorithmSwap.length()));
+    }
+
+    @Test
+    @DisplayName("Should publish a changed file and keep the current keys when it does not parse")
+    void testReload() throws IOException {
+        Keys before = keyRing.keys();
+        assertTrue(keyRing.reload());
+        assertSame(before, keyRing.keys());
+
+        Files.writeString(ringFile, Files.readString(ringFile).replace("pepper.active=2", "pepper.active=1"));
+        assertTrue(keyRing.reload());
+        Keys rotated = keyRing.keys();
+        assertEquals(1, rotated.activePepperVersion());
+        assertTrue(rotated.generation() > before.generation());
+
+        Files.writeString(ringFile, "pepper.active=3\npepper.1=first-pepper\n");
+        assertFalse(keyRing.reload());
+        assertSame(rotated, keyRing.keys());
+    }
+
+    @Test
+    @DisplayName("Should record the pepper version in front of the Argon2 hash")
+    void testPepperedHash() {
+        String argon2 = "$argon2id$v=19$m=65536,t=2,p=1$c2FsdA$aGFzaA";
+        String stored = PepperedHash.format(12, argon2);
+        assertEquals("p12" + argon2, stored);
+        assertEquals(12, PepperedHash.version(stored));
+        assertEquals(argon2, PepperedHash.argon2(stored));
+
+        assertEquals(PepperedHash.LEGACY_VERSION, PepperedHash.version(argon2));
+        assertEquals(argon2, PepperedHash.argon2(argon2));
+        assertThrows(IllegalArgumentException.class, () -> PepperedHash.version("px$argon2id$"));
+    }
+
+    private static void writePem(Path file, String type, Key key) throws IOException {
+        String body = Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(key.getEncoded());
+        Files.writeString(file, "-----BEGIN " + type + "-----\n" + body + "\n-----END " + type + "-----\n");
+    }
+}
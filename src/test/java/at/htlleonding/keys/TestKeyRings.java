@@ -0,0 +1,44 @@
+package at.htlleonding.keys;
+
+import at.htlleonding.CredentialManager;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * KeyRings wired by hand for plain unit tests.
+ */
+public final class TestKeyRings {
+    public static final String PEPPER = "test-pepper-0123456789abcdef";
+
+    private TestKeyRings() {
+    }
+
+    /**
+     * A ring without a file: pepper version 1 and one token key for {@code algorithm}.
+     */
+    public static KeyRing configured(String algorithm) {
+        return keyRing(Optional.empty(), algorithm);
+    }
+
+    public static KeyRing file(Path location) {
+        return keyRing(Optional.of(location), "HS256");
+    }
+
+    private static KeyRing keyRing(Optional<Path> location, String algorithm) {
+        KeyRing keyRing = new KeyRing();
+        keyRing.credentialManager = new CredentialManager() {
+            @Override
+            public String getPepper() {
+                return PEPPER;
+            }
+        };
+        keyRing.location = location;
+        keyRing.algorithm = algorithm;
+        keyRing.keyId = Optional.empty();
+        keyRing.privateKeyLocation = Optional.empty();
+        keyRing.publicKeyLocation = Optional.empty();
+        keyRing.init();
+        return keyRing;
+    }
+}
@@ -0,0 +1,48 @@
+package at.htlleonding.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryRateLimitStoreTest {
+    private InMemoryRateLimitStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new InMemoryRateLimitStore();
+        store.maxKeys = 1000;
+        store.idleTimeout = Duration.ofHours(1);
+        store.init();
+    }
+
+    @Test
+    @DisplayName("Should allow a burst and then ask the caller to wait one emission interval")
+    void testAcquire_Burst() {
+        long now = 1_000_000;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, store.acquire("key", 1000, 2000, now));
+        }
+        assertEquals(1000, store.acquire("key", 1000, 2000, now));
+        assertEquals(0, store.acquire("key", 1000, 2000, now + 1000));
+    }
+
+    @Test
+    @DisplayName("Should count failures per window and restart after it")
+    void testRecordFailure_Window() {
+        assertEquals(1, store.recordFailure("key", 1000, 5000));
+        assertEquals(2, store.recordFailure("key", 1000, 5500));
+        assertEquals(1, store.recordFailure("key", 1000, 6000));
+    }
+
+    @Test
+    @DisplayName("Should report a lock until it has expired")
+    void testLock() {
+        store.lock("key", 2000);
+        assertEquals(2000, store.lockedUntil("key", 1000));
+        assertEquals(0, store.lockedUntil("key", 2000));
+    }
+}
@@ -0,0 +1,87 @@
+package at.htlleonding.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginThrottleTest {
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    public void setUp() {
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore();
+        store.maxKeys = 1000;
+        store.idleTimeout = Duration.ofHours(1);
+        store.init();
+
+        throttle = new LoginThrottle();
+        throttle.usernamePerMinute = 1000;
+        throttle.usernameBurst = 1000;
+        throttle.ipPerMinute = 1000;
+        throttle.ipBurst = 1000;
+        throttle.maxFailures = 3;
+        throttle.failureWindow = Duration.ofMinutes(15);
+        throttle.lockoutDuration = Duration.ofMinutes(15);
+        throttle.store = store;
+        throttle.registry = new SimpleMeterRegistry();
+        throttle.init();
+    }
+
+    @Test
+    @DisplayName("Should lock a username only for the address the failures came from")
+    void testLockout_PerAddress() {
+        for (int i = 0; i < 3; i++) {
+            throttle.checkAllowed("victim@gmail.com", "10.0.0.1");
+            throttle.recordFailure("victim@gmail.com", "10.0.0.1");
+        }
+
+        assertThrows(RateLimitedException.class, () -> throttle.checkAllowed("victim@gmail.com", "10.0.0.1"));
+        assertThrows(RateLimitedException.class, () -> throttle.checkAllowed("VICTIM@gmail.com", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.checkAllowed("victim@gmail.com", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("Should reset the failure count after a successful login")
+    void testRecordSuccess_ResetsFailures() {
+        throttle.recordFailure("user@gmail.com", "10.0.0.1");
+        throttle.recordFailure("user@gmail.com", "10.0.0.1");
+        throttle.recordSuccess("user@gmail.com", "10.0.0.1");
+        throttle.recordFailure("user@gmail.com", "10.0.0.1");
+
+        assertDoesNotThrow(() -> throttle.checkAllowed("user@gmail.com", "10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Should limit attempts per username from one address")
+    void testUsernameBucket_PerAddress() {
+        throttle.usernamePerMinute = 1;
+        throttle.usernameBurst = 2;
+
+        throttle.checkAllowed("user@gmail.com", "10.0.0.1");
+        throttle.checkAllowed("user@gmail.com", "10.0.0.1");
+        assertThrows(RateLimitedException.class, () -> throttle.checkAllowed("user@gmail.com", "10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Should let the owner log in while another client floods the username")
+    void testUsernameBucket_FloodFromOtherAddress() {
+        throttle.usernamePerMinute = 1;
+        throttle.usernameBurst = 2;
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                throttle.checkAllowed("victim@gmail.com", "10.0.0.1");
+                throttle.recordFailure("victim@gmail.com", "10.0.0.1");
+            } catch (RateLimitedException ignored) {
+            }
+        }
+
+        assertDoesNotThrow(() -> throttle.checkAllowed("victim@gmail.com", "10.0.0.2"));
+        throttle.recordSuccess("victim@gmail.com", "10.0.0.2");
+    }
+}
@@ -0,0 +1,79 @@
+package at.htlleonding.token;
+
+import at.htlleonding.token.RefreshTokenService.Rotation;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class RefreshTokenServiceTest {
+    private static final String USERNAME = "refresh@gmail.com";
+
+    @Inject
+    RefreshTokenService refreshTokens;
+
+    @Inject
+    RefreshTokenRepository tokenRepo;
+
+    @AfterEach
+    public void tearDown() {
+        QuarkusTransaction.requiringNew().run(() -> tokenRepo.deleteByUsername(USERNAME));
+    }
+
+    @Test
+    @DisplayName("refresh should return a different successor for the same user")
+    void testRefresh_Rotates() {
+        String token = refreshTokens.issue(USERNAME);
+
+        Rotation rotation = refreshTokens.refresh(token);
+        assertNotNull(rotation);
+        assertEquals(USERNAME, rotation.username());
+        assertNotEquals(token, rotation.refreshToken());
+        assertNotNull(refreshTokens.refresh(rotation.refreshToken()));
+    }
+
+    @Test
+    @DisplayName("reusing an exchanged token should revoke the whole family")
+    void testRefresh_ReuseRevokesFamily() {
+        String token = refreshTokens.issue(USERNAME);
+        Rotation rotation = refreshTokens.refresh(token);
+
+        assertNull(refreshTokens.refresh(token));
+        assertNull(refreshTokens.refresh(rotation.refreshToken()));
+    }
+
+    @Test
+    @DisplayName("refresh should reject unknown and malformed tokens")
+    void testRefresh_Invalid() {
+        assertNull(refreshTokens.refresh(null));
+        assertNull(refreshTokens.refresh("not-a-token"));
+        assertNull(refreshTokens.refresh("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"));
+    }
+
+    @Test
+    @DisplayName("revoke should log out only the token's family")
+    void testRevoke_Family() {
+        String first = refreshTokens.issue(USERNAME);
+        String second = refreshTokens.issue(USERNAME);
+
+        assertTrue(refreshTokens.revoke(first));
+        assertNull(refreshTokens.refresh(first));
+        assertNotNull(refreshTokens.refresh(second));
+    }
+
+    @Test
+    @DisplayName("revokeAll should invalidate every family of the user")
+    void testRevokeAll() {
+        String first = refreshTokens.issue(USERNAME);
+        String second = refreshTokens.issue(USERNAME);
+
+        refreshTokens.revokeAll(USERNAME);
+        assertNull(refreshTokens.refresh(first));
+        assertNull(refreshTokens.refresh(second));
+    }
+}
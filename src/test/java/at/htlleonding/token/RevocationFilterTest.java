@@ -0,0 +1,68 @@
+package at.htlleonding.token;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RevocationFilterTest {
+    private static final long NOW = 1_700_000_000L;
+
+    private RevocationFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new RevocationFilter(300, 3600, 1000, 0.01);
+    }
+
+    @Test
+    @DisplayName("Should report every added id and almost no others")
+    void testMightContain_FalsePositiveRate() {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.add("revoked-" + i, NOW + 600, NOW));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("revoked-" + i, NOW + 600, NOW));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("valid-" + i, NOW + 600, NOW)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should only probe the slot of the token's expiry")
+    void testMightContain_OtherSlot() {
+        filter.add("revoked", NOW + 600, NOW);
+        assertFalse(filter.mightContain("revoked", NOW + 1800, NOW));
+    }
+
+    @Test
+    @DisplayName("Should send tokens beyond the horizon to the store")
+    void testMightContain_BeyondHorizon() {
+        assertFalse(filter.add("revoked", NOW + 7200, NOW));
+        assertTrue(filter.mightContain("anything", NOW + 7200, NOW));
+    }
+
+    @Test
+    @DisplayName("Should drop slots once all their tokens have expired")
+    void testExpire() {
+        filter.add("revoked", NOW + 60, NOW);
+        assertEquals(0, filter.expire(NOW));
+        assertEquals(1, filter.expire(NOW + 600));
+    }
+
+    @Test
+    @DisplayName("Should reuse a ring position for a later slot")
+    void testAdd_ReplacesStaleSlot() {
+        filter.add("old", NOW + 60, NOW);
+        long later = NOW + 3900;
+        assertTrue(filter.add("new", later + 60, later));
+        assertTrue(filter.mightContain("new", later + 60, later));
+        assertFalse(filter.mightContain("old", later + 60, later));
+    }
+}